@@ -0,0 +1,38 @@
+package com.example.usermanagement.cli;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.config.ShardingProperties;
+import com.example.usermanagement.repository.sharding.ShardMigrator;
+
+/**
+ * Registers every user of every shard that the directory does not know yet, e.g. after turning
+ * sharding on over an existing {@code users} table:
+ * {@code java -jar user-management.jar --spring.main.web-application-type=none --app.sharding.enabled=true
+ * --directory.reconcile=true}. Safe to rerun; rows already in the directory are skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "directory.reconcile", havingValue = "true")
+public class DirectoryReconcileRunner implements ApplicationRunner {
+
+    @Autowired
+    private ShardMigrator shardMigrator;
+
+    @Autowired
+    private ShardingProperties shardingProperties;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        shardMigrator.reconcileDirectory(shardingProperties.getDirectoryBackfillBatchSize());
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.usermanagement.cli;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.config.ShardingConfig;
+import com.example.usermanagement.repository.sharding.ShardMigrator;
+
+/**
+ * Moves one shard to a new database, e.g.
+ * {@code java -jar user-management.jar --spring.main.web-application-type=none --app.sharding.enabled=true
+ * --reshard.shard=2 --reshard.target-url=jdbc:mysql://db-3:3306/user_management}.
+ * Pause writes to the shard first, then point {@code app.sharding.shards[shard - 1].url} at the target.
+ */
+@Component
+@ConditionalOnProperty("reshard.shard")
+public class ReshardRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReshardRunner.class);
+
+    @Autowired
+    private ShardMigrator shardMigrator;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${reshard.shard}")
+    private int shard;
+
+    @Value("${reshard.target-url}")
+    private String targetUrl;
+
+    @Value("${reshard.target-username:${spring.datasource.username}}")
+    private String targetUsername;
+
+    @Value("${reshard.target-password:${spring.datasource.password}}")
+    private String targetPassword;
+
+    @Value("${reshard.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try (HikariDataSource target = new HikariDataSource()) {
+            target.setPoolName("reshard-target");
+            target.setDriverClassName(dataSourceProperties.getDriverClassName());
+            target.setJdbcUrl(targetUrl);
+            target.setUsername(targetUsername);
+            target.setPassword(targetPassword);
+            ShardingConfig.migrateShard(target);
+
+            long copied = shardMigrator.moveShard(shard, target, batchSize);
+            log.info("Moved shard {} ({} rows). Set app.sharding.shards[{}].url={} and redeploy.",
+                    shard, copied, shard - 1, targetUrl);
+        }
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
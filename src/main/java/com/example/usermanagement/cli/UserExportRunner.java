@@ -0,0 +1,64 @@
+package com.example.usermanagement.cli;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.service.UserExportService;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Offline export entry point, e.g.
+ * {@code java -jar user-management.jar --spring.main.web-application-type=none --export.output=users.csv.gz}.
+ * Compression defaults to gzip when the output file name ends in {@code .gz}.
+ */
+@Component
+@ConditionalOnProperty("export.output")
+public class UserExportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(UserExportRunner.class);
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${export.output}")
+    private String output;
+
+    @Value("${export.format:csv}")
+    private String format;
+
+    @Value("${export.compression:}")
+    private String compression;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path path = Path.of(output);
+        UserExportService.Compression exportCompression = compression.isBlank()
+                ? (output.endsWith(".gz") ? UserExportService.Compression.GZIP : UserExportService.Compression.NONE)
+                : UserExportService.Compression.from(compression);
+
+        long start = System.nanoTime();
+        long rows;
+        try (OutputStream out = Files.newOutputStream(path)) {
+            rows = userExportService.export(out, UserExportService.Format.from(format), exportCompression);
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Exported {} users to {} in {} ms ({} rows/s)", rows, path.toAbsolutePath(), elapsedMs,
+                rows * 1000 / elapsedMs);
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
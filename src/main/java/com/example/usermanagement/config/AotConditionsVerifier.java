@@ -0,0 +1,68 @@
+package com.example.usermanagement.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.cli.DirectoryReconcileRunner;
+import com.example.usermanagement.cli.ReshardRunner;
+import com.example.usermanagement.cli.UserExportRunner;
+import com.example.usermanagement.event.FileUserEventSink;
+import com.example.usermanagement.repository.sharding.ShardRouter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code -Dspring.aot.enabled=true} the {@code @ConditionalOnProperty} beans below were decided when
+ * the jar was built, so a runtime property cannot switch them on or off. Fails startup when the properties
+ * and the registered beans disagree instead of silently running with the build-time choice. Without AOT
+ * the two always agree and this check passes.
+ */
+@Component
+public class AotConditionsVerifier implements SmartInitializingSingleton {
+
+    static final List<Toggle> TOGGLES = List.of(
+            new Toggle("app.datasource.routing.enabled", "true", ReplicaRoutingDataSource.class),
+            new Toggle("app.sharding.enabled", "true", ShardRouter.class),
+            new Toggle("app.outbox.file-sink.path", null, FileUserEventSink.class),
+            new Toggle("export.output", null, UserExportRunner.class),
+            new Toggle("reshard.shard", null, ReshardRunner.class),
+            new Toggle("directory.reconcile", "true", DirectoryReconcileRunner.class));
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private Environment environment;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> mismatches = new ArrayList<>();
+        for (Toggle toggle : TOGGLES) {
+            boolean requested = toggle.requested(environment.getProperty(toggle.property()));
+            boolean present = context.getBeanNamesForType(toggle.beanType(), true, false).length > 0;
+            if (requested != present) {
+                mismatches.add(toggle.property() + (requested ? " is set but the build left it out" : " is unset but the build included it"));
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("Runtime properties do not match the AOT build: " + mismatches
+                    + ". Rebuild with -Paot -Dspring-boot.aot.jvmArguments=\"-D<property>=<value>\", "
+                    + "or start without -Dspring.aot.enabled=true.");
+        }
+    }
+
+    /** Mirrors {@code @ConditionalOnProperty}: a value must match, or without one any value but "false" matches. */
+    record Toggle(String property, String havingValue, Class<?> beanType) {
+
+        boolean requested(String value) {
+            if (value == null) {
+                return false;
+            }
+            return havingValue != null ? havingValue.equalsIgnoreCase(value) : !"false".equalsIgnoreCase(value);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.usermanagement.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Runs outside the transaction interceptor so the connection a transaction opens is attributed to the method. */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConnectionHoldAspect {
+
+    @Autowired
+    private ConnectionHoldTracker connectionHoldTracker;
+
+    @Around("execution(public * com.example.usermanagement.service.UserService.*(..))")
+    public Object attribute(ProceedingJoinPoint joinPoint) throws Throwable {
+        String previous = connectionHoldTracker.enter("UserService." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            connectionHoldTracker.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.usermanagement.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/** {@code /actuator/connectionholds}: longest connection hold per service method, in milliseconds. */
+@Component
+@Endpoint(id = "connectionholds")
+public class ConnectionHoldEndpoint {
+
+    @Autowired
+    private ConnectionHoldTracker connectionHoldTracker;
+
+    @ReadOperation
+    public Map<String, Long> longestHolds() {
+        return connectionHoldTracker.longestHolds();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.usermanagement.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Measures how long each connection is checked out and attributes it to the service operation
+ * running on the thread ({@link #enter}), so long holds and leaks point at a method rather than
+ * just at pool exhaustion.
+ */
+public class ConnectionHoldTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionHoldTracker.class);
+    private static final String UNATTRIBUTED = "other";
+
+    private final ThreadLocal<String> currentOperation = new ThreadLocal<>();
+    private final Map<Connection, Checkout> open = new ConcurrentHashMap<>();
+    private final Map<String, LongAccumulator> longestNanos = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long warnNanos;
+    private final long leakNanos;
+
+    public ConnectionHoldTracker(MeterRegistry meterRegistry, long warnMillis, long leakMillis) {
+        this.meterRegistry = meterRegistry;
+        this.warnNanos = TimeUnit.MILLISECONDS.toNanos(warnMillis);
+        this.leakNanos = TimeUnit.MILLISECONDS.toNanos(leakMillis);
+    }
+
+    /** Marks the start of an operation; returns the previous value to pass to {@link #exit}. */
+    public String enter(String operation) {
+        String previous = currentOperation.get();
+        if (previous == null) {
+            currentOperation.set(operation);
+        }
+        return previous;
+    }
+
+    public void exit(String previous) {
+        if (previous == null) {
+            currentOperation.remove();
+        }
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return track(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return track(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /** Longest observed hold per operation in milliseconds, longest first. */
+    public Map<String, Long> longestHolds() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        longestNanos.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAccumulator> e) -> e.getValue().get()).reversed())
+                .forEach(e -> result.put(e.getKey(), TimeUnit.NANOSECONDS.toMillis(e.getValue().get())));
+        return result;
+    }
+
+    /** Logs connections that have been out longer than the leak threshold; each one is reported once. */
+    @Scheduled(fixedDelayString = "${app.datasource.hold.leak-check-interval-ms:10000}")
+    public int reportLeaks() {
+        long now = System.nanoTime();
+        int suspects = 0;
+        for (Checkout checkout : open.values()) {
+            if (now - checkout.startNanos() > leakNanos && checkout.reported().compareAndSet(false, true)) {
+                suspects++;
+                log.warn("Connection held for {} ms by {} on thread {} has not been returned",
+                        TimeUnit.NANOSECONDS.toMillis(now - checkout.startNanos()), checkout.operation(), checkout.thread());
+            }
+        }
+        return suspects;
+    }
+
+    private Connection track(Connection target) {
+        String operation = currentOperation.get();
+        Checkout checkout = new Checkout(operation != null ? operation : UNATTRIBUTED,
+                Thread.currentThread().getName(), System.nanoTime(), new AtomicBoolean());
+        Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (self, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0 && open.remove(self) != null) {
+                        released(checkout);
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        open.put(proxy, checkout);
+        return proxy;
+    }
+
+    private void released(Checkout checkout) {
+        long held = System.nanoTime() - checkout.startNanos();
+        timers.computeIfAbsent(checkout.operation(), operation -> Timer.builder("db.connection.hold")
+                        .description("Time a JDBC connection stays checked out")
+                        .tag("operation", operation)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(held, TimeUnit.NANOSECONDS);
+        longestNanos.computeIfAbsent(checkout.operation(), operation -> new LongAccumulator(Math::max, 0)).accumulate(held);
+        if (held > warnNanos) {
+            log.warn("Connection held for {} ms by {}", TimeUnit.NANOSECONDS.toMillis(held), checkout.operation());
+        }
+    }
+
+    private record Checkout(String operation, String thread, long startNanos, AtomicBoolean reported) {
+    }
+}
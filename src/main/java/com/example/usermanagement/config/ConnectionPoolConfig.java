@@ -0,0 +1,56 @@
+package com.example.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ConnectionPoolConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolConfig.class);
+
+    @Bean
+    public ConnectionHoldTracker connectionHoldTracker(MeterRegistry meterRegistry,
+                                                       @Value("${app.datasource.hold.warn-ms:1000}") long warnMillis,
+                                                       @Value("${app.datasource.hold.leak-ms:30000}") long leakMillis) {
+        return new ConnectionHoldTracker(meterRegistry, warnMillis, leakMillis);
+    }
+
+    /**
+     * Sizes Hikari pools from the core count ({@code cores * 2 + effective spindles}) unless a size is
+     * configured explicitly, and routes the application datasource through the hold tracker.
+     */
+    @Bean
+    public static BeanPostProcessor connectionPoolPostProcessor(Environment environment,
+                                                                ObjectProvider<ConnectionHoldTracker> connectionHoldTracker) {
+        boolean autoSize = environment.getProperty("app.datasource.pool.auto-size", Boolean.class, false)
+                && !environment.containsProperty("spring.datasource.hikari.maximum-pool-size");
+        int spindles = environment.getProperty("app.datasource.pool.effective-spindles", Integer.class, 1);
+        boolean trackHolds = environment.getProperty("app.datasource.hold.tracking-enabled", Boolean.class, true);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (autoSize && bean instanceof HikariDataSource hikari) {
+                    int size = Runtime.getRuntime().availableProcessors() * 2 + spindles;
+                    hikari.setMaximumPoolSize(size);
+                    hikari.setMinimumIdle(size);
+                    log.info("Sized connection pool {} to {} connections", beanName, size);
+                }
+                if (trackHolds && "dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return connectionHoldTracker.getObject().wrap(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
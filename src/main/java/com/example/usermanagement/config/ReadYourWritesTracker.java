@@ -0,0 +1,48 @@
+package com.example.usermanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.security.CustomUserDetails;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers users who just wrote so their own reads can skip replicas until replication
+ * has caught up.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final ConcurrentHashMap<Long, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    @Value("${app.datasource.read-your-writes-window-ms:5000}")
+    private long windowMillis;
+
+    public void pin(Long userId) {
+        if (userId != null) {
+            pinnedUntil.put(userId, System.currentTimeMillis() + windowMillis);
+        }
+    }
+
+    public boolean isCurrentUserPinned() {
+        if (pinnedUntil.isEmpty()) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails principal)) {
+            return false;
+        }
+        Long until = pinnedUntil.get(principal.getId());
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.read-your-writes-window-ms:5000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        pinnedUntil.values().removeIf(until -> until <= now);
+    }
+}
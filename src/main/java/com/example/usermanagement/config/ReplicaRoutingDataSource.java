@@ -0,0 +1,96 @@
+package com.example.usermanagement.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends read-only transactions to a healthy replica, round-robin, and everything else to the
+ * primary. Must be wrapped in a LazyConnectionDataSourceProxy so the lookup happens after
+ * the transaction's read-only flag is set.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+    private final BooleanSupplier pinnedToPrimary;
+    private final AtomicIntegerArray healthy;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, BooleanSupplier pinnedToPrimary) {
+        this.replicas = replicas;
+        this.pinnedToPrimary = pinnedToPrimary;
+        this.healthy = new AtomicIntegerArray(replicas.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+            healthy.set(i, 1);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || pinnedToPrimary.getAsBoolean()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(counter.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            int candidate = (start + i) % size;
+            if (healthy.get(candidate) == 1) {
+                return candidate;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.health-check-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean up;
+            try (Connection connection = replicas.get(i).getConnection()) {
+                up = connection.isValid(2);
+            } catch (Exception e) {
+                up = false;
+            }
+            if (up != (healthy.get(i) == 1)) {
+                log.warn("Read replica {} is now {}", i, up ? "healthy" : "unhealthy");
+            }
+            markHealthy(i, up);
+        }
+    }
+
+    DataSource currentTarget() {
+        return determineTargetDataSource();
+    }
+
+    void markHealthy(int replica, boolean up) {
+        healthy.set(replica, up ? 1 : 0);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
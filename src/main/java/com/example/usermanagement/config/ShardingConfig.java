@@ -0,0 +1,97 @@
+package com.example.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import com.example.usermanagement.repository.sharding.ShardMigrator;
+import com.example.usermanagement.repository.sharding.ShardRouter;
+import com.example.usermanagement.repository.sharding.ShardedUserRepository;
+import com.example.usermanagement.repository.sharding.UserDirectory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(DataSource dataSource, DataSourceProperties properties, ShardingProperties sharding) {
+        Map<Integer, DataSource> shards = new HashMap<>();
+        List<Integer> writable = new ArrayList<>();
+        shards.put(0, dataSource);
+        if (sharding.isPrimaryWritable()) {
+            writable.add(0);
+        }
+        for (int i = 0; i < sharding.getShards().size(); i++) {
+            ShardingProperties.Shard shard = sharding.getShards().get(i);
+            HikariDataSource shardDataSource = new HikariDataSource();
+            shardDataSource.setPoolName("shard-" + (i + 1));
+            shardDataSource.setDriverClassName(properties.getDriverClassName());
+            shardDataSource.setJdbcUrl(shard.getUrl());
+            shardDataSource.setUsername(shard.getUsername() != null ? shard.getUsername() : properties.getUsername());
+            shardDataSource.setPassword(shard.getPassword() != null ? shard.getPassword() : properties.getPassword());
+            shardDataSource.setMaximumPoolSize(sharding.getShardPoolSize());
+            migrateShard(shardDataSource);
+            shards.put(i + 1, shardDataSource);
+            if (shard.isWritable()) {
+                writable.add(i + 1);
+            }
+        }
+        return new ShardRouter(shards, writable);
+    }
+
+    @Bean
+    public UserDirectory userDirectory(DataSource dataSource, ObjectProvider<FlywayMigrationInitializer> flywayInitializer) {
+        // The primary schema must exist first, or Flyway would baseline over the directory table.
+        flywayInitializer.getIfAvailable();
+        migrateDirectory(dataSource);
+        return new UserDirectory(dataSource);
+    }
+
+    @Bean
+    public ShardMigrator shardMigrator(ShardRouter shardRouter, UserDirectory userDirectory) {
+        ShardMigrator migrator = new ShardMigrator(shardRouter, userDirectory);
+        shardRouter.shardIds().forEach(migrator::initializeShard);
+        migrator.releaseStaleReservations();
+        return migrator;
+    }
+
+    // Shards must have their schema and id range before the store writes to them.
+    @Bean(destroyMethod = "close")
+    @DependsOn("shardMigrator")
+    public ShardedUserRepository shardedUserRepository(ShardRouter shardRouter, UserDirectory userDirectory,
+                                                       ShardingProperties sharding) {
+        return new ShardedUserRepository(shardRouter, userDirectory,
+                sharding.getScatterThreads(), sharding.getScatterQueueCapacity());
+    }
+
+    /** Applies the regular schema migrations to a non-primary shard. */
+    public static void migrateShard(DataSource dataSource) {
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+    }
+
+    /** Creates the directory next to the primary schema, tracked in its own history table. */
+    public static void migrateDirectory(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/sharding")
+                .table("flyway_sharding_history")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.usermanagement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shard 0 is always the application datasource (which also holds the email/username directory);
+ * {@code shards[i]} configures shard {@code i + 1}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean primaryWritable = true;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    private int shardPoolSize = 10;
+
+    private int directoryBackfillBatchSize = 1000;
+
+    private int scatterThreads = 8;
+
+    private int scatterQueueCapacity = 64;
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private boolean writable = true;
+    }
+}
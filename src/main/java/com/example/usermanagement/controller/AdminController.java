@@ -0,0 +1,48 @@
+package com.example.usermanagement.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.usermanagement.service.UserExportService;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Administration", description = "Administrative operations")
+public class AdminController {
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @GetMapping("/users/export")
+    @Operation(summary = "Export users", description = "Stream all users as CSV or NDJSON, optionally gzip-compressed")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "none") String compression) {
+        UserExportService.Format exportFormat = UserExportService.Format.from(format);
+        UserExportService.Compression exportCompression = UserExportService.Compression.from(compression);
+
+        String filename = "users." + exportFormat.getExtension();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (exportCompression == UserExportService.Compression.GZIP) {
+            filename += ".gz";
+            response.contentType(MediaType.parseMediaType("application/gzip"));
+        } else {
+            response.contentType(MediaType.parseMediaType(exportFormat.getContentType()));
+        }
+
+        return response
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> userExportService.export(out, exportFormat, exportCompression));
+    }
+}
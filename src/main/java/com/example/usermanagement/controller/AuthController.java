@@ -2,6 +2,7 @@ package com.example.usermanagement.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -28,8 +29,26 @@ public class AuthController {
 
     @PostMapping("/login")
     @Operation(summary = "User login", description = "Authenticate user and receive JWT token")
-    public ResponseEntity<UserDTOs.AuthResponse> login(@Valid @RequestBody UserDTOs.LoginRequest request) {
-        UserDTOs.AuthResponse response = userService.login(request);
+    public ResponseEntity<UserDTOs.AuthResponse> login(@Valid @RequestBody UserDTOs.LoginRequest request,
+                                                       HttpServletRequest httpRequest) {
+        UserDTOs.AuthResponse response = userService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh access token", description = "Exchange a refresh token for a new access and refresh token pair")
+    public ResponseEntity<UserDTOs.AuthResponse> refresh(@Valid @RequestBody UserDTOs.RefreshRequest request) {
+        UserDTOs.AuthResponse response = userService.refresh(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "User logout", description = "Revoke the current access token and the given refresh token")
+    public ResponseEntity<UserDTOs.MessageResponse> logout(
+            @RequestBody(required = false) UserDTOs.RefreshRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        userService.logout(request != null ? request.getRefreshToken() : null, accessToken);
+        return ResponseEntity.ok(new UserDTOs.MessageResponse("Logged out successfully"));
+    }
 }
\ No newline at end of file
@@ -3,17 +3,37 @@ package com.example.usermanagement.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.service.AvatarCacheService;
 import com.example.usermanagement.service.UserService;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/users")
@@ -21,21 +41,72 @@ import java.util.List;
 @Tag(name = "User Management", description = "Endpoints for managing users")
 public class UserController {
 
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Uploaded files keep the content type the client claimed, so nothing is rendered as a document.
+    private static final String AVATAR_CSP = "default-src 'none'; sandbox";
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AvatarCacheService avatarCacheService;
+
+    @Value("${app.avatar-cache.max-age-seconds:3600}")
+    private long avatarMaxAgeSeconds;
+
     @GetMapping
     @Operation(summary = "Get all users", description = "Retrieve list of all users")
-    public ResponseEntity<List<UserDTOs.UserResponse>> getAllUsers() {
+    public ResponseEntity<List<UserDTOs.UserResponse>> getAllUsers(WebRequest webRequest) {
+        UserRepository.ListVersion version = userService.getUserListVersion();
+        String eTag = listETag(version);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
         List<UserDTOs.UserResponse> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+        return ResponseEntity.ok().eTag(eTag).body(users);
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get user changes", description = "Retrieve users updated or deleted since a timestamp or cursor")
+    public ResponseEntity<UserDTOs.UserChangesResponse> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(userService.getChanges(since, limit));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID", description = "Retrieve a specific user by their ID")
-    public ResponseEntity<UserDTOs.UserResponse> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDTOs.UserResponse> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        LocalDateTime cachedVersion = userService.getCachedVersion(id);
+        if (cachedVersion != null && webRequest.checkNotModified(userETag(id, cachedVersion), epochMillis(cachedVersion))) {
+            return null;
+        }
         UserDTOs.UserResponse user = userService.getUserById(id);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok()
+                .eTag(userETag(user.getId(), user.getUpdatedAt()))
+                .lastModified(epochMillis(user.getUpdatedAt()))
+                .body(user);
+    }
+
+    @GetMapping("/{id}/avatar")
+    @Operation(summary = "Get profile picture", description = "Serve the user's profile picture from the local cache, with range support")
+    public void getAvatar(@PathVariable Long id, WebRequest webRequest,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCacheService.AvatarSource source = userService.getAvatarSource(id);
+        String eTag = "\"" + source.fileId() + "\"";
+        if (source.fileId() != null && webRequest.checkNotModified(eTag)) {
+            return;
+        }
+        Optional<AvatarCacheService.CachedAvatar> cached = avatarCacheService.get(source.fileId(), source.url());
+        if (cached.isEmpty()) {
+            response.sendRedirect(source.url());
+            return;
+        }
+        writeAvatar(cached.get(), eTag, request, response);
     }
 
     @PutMapping("/{id}")
@@ -62,4 +133,95 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.ok(new UserDTOs.MessageResponse("User deleted successfully"));
     }
+
+    private void writeAvatar(AvatarCacheService.CachedAvatar avatar, String eTag,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = avatar.size();
+        long start = 0;
+        long end = size - 1;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(avatarMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", AVATAR_CSP);
+        if (!isRasterImage(avatar.mediaType())) {
+            // SVG and anything else that can carry script is downloaded, never rendered in our origin.
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+        response.setContentType(avatar.mediaType().toString());
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Multipart/byteranges responses are not supported.
+                if (ranges.size() != 1) {
+                    throw new IllegalArgumentException("Expected a single range: " + range);
+                }
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+                if (start >= size || start > end) {
+                    throw new IllegalArgumentException("Range not satisfiable: " + range);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            // Tomcat writes the file straight from the page cache to the socket after we return; the
+            // cache delays deleting evicted files so the path is still there when it opens it.
+            request.setAttribute(SENDFILE_FILENAME_ATTR, avatar.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(avatar.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    private static boolean isRasterImage(MediaType mediaType) {
+        return "image".equals(mediaType.getType()) && !mediaType.getSubtype().contains("svg");
+    }
+
+    private static String userETag(Long id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + versionOf(updatedAt) + "\"";
+    }
+
+    private static String listETag(UserRepository.ListVersion version) {
+        return "\"users-" + version.getCount() + "-" + versionOf(version.getLastUpdatedAt()) + "\"";
+    }
+
+    private static String versionOf(LocalDateTime time) {
+        if (time == null) {
+            return "0";
+        }
+        return Long.toHexString(time.toEpochSecond(ZoneOffset.UTC)) + "." + Integer.toHexString(time.getNano());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 }
\ No newline at end of file
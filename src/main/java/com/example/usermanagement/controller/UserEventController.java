@@ -0,0 +1,45 @@
+package com.example.usermanagement.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.event.UserEventFeed;
+
+@RestController
+@RequestMapping("/api/events/users")
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "User Events", description = "Incremental feed of user changes")
+public class UserEventController {
+
+    private static final long MAX_POLL_TIMEOUT_MS = 60000;
+    private static final long STREAM_TIMEOUT_MS = 1800000;
+
+    @Autowired
+    private UserEventFeed eventFeed;
+
+    @GetMapping
+    @Operation(summary = "Poll user events", description = "Long-poll for user change events after a cursor")
+    public DeferredResult<UserDTOs.UserEventsResponse> poll(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "30000") long timeoutMs) {
+        int max = Math.max(1, Math.min(limit, 1000));
+        long timeout = Math.max(0, Math.min(timeoutMs, MAX_POLL_TIMEOUT_MS));
+        return eventFeed.await(after, max, timeout);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream user events", description = "Server-sent events stream of user changes")
+    public SseEmitter stream(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(defaultValue = "0") long after) {
+        return eventFeed.subscribe(lastEventId != null ? lastEventId : after, STREAM_TIMEOUT_MS);
+    }
+}
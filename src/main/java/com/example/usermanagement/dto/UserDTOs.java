@@ -7,7 +7,10 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.example.usermanagement.entity.UserEventType;
+
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class UserDTOs {
 
@@ -46,6 +49,14 @@ public class UserDTOs {
         private String password;
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RefreshRequest {
+        @NotBlank(message = "Refresh token is required")
+        private String refreshToken;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -72,16 +83,47 @@ public class UserDTOs {
         private LocalDateTime updatedAt;
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserChangesResponse {
+        private List<UserResponse> updated;
+        private List<Long> deleted;
+        private String nextCursor;
+        private boolean hasMore;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserChangeEvent {
+        private Long eventId;
+        private Long userId;
+        private UserEventType type;
+        private LocalDateTime occurredAt;
+        private UserResponse user;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserEventsResponse {
+        private List<UserChangeEvent> events;
+        private long cursor;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     public static class AuthResponse {
         private String token;
+        private String refreshToken;
         private String type = "Bearer";
         private UserResponse user;
 
-        public AuthResponse(String token, UserResponse user) {
+        public AuthResponse(String token, String refreshToken, UserResponse user) {
             this.token = token;
+            this.refreshToken = refreshToken;
             this.user = user;
         }
     }
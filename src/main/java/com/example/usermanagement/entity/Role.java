@@ -0,0 +1,6 @@
+package com.example.usermanagement.entity;
+
+public enum Role {
+    USER,
+    ADMIN
+}
@@ -4,13 +4,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_updated_at", columnList = "updated_at, id"),
+        @Index(name = "idx_users_deleted_at", columnList = "deleted_at, id")
+})
+@SQLRestriction("deleted_at IS NULL")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +52,23 @@ public class User {
     @Column(nullable = false)
     private Boolean isActive = true;
 
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'USER'")
+    @Column(nullable = false, length = 20)
+    private Role role = Role.USER;
+
+    private LocalDateTime deletedAt;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer purgeAttempts = 0;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime lastSeenAt;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,8 @@
+package com.example.usermanagement.entity;
+
+public enum UserEventType {
+    CREATED,
+    UPDATED,
+    PROFILE_PICTURE_UPDATED,
+    DELETED
+}
@@ -0,0 +1,45 @@
+package com.example.usermanagement.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.dto.UserDTOs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as newline-delimited JSON to a local file.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.file-sink.path")
+public class FileUserEventSink implements UserEventSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.outbox.file-sink.path}")
+    private Path path;
+
+    @Override
+    public synchronized void publish(List<UserDTOs.UserChangeEvent> events) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (UserDTOs.UserChangeEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        }
+    }
+}
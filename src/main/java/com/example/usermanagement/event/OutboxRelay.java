@@ -0,0 +1,100 @@
+package com.example.usermanagement.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.OutboxEvent;
+import com.example.usermanagement.repository.OutboxEventRepository;
+import com.example.usermanagement.service.OutboxService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the outbox in id order and hands each batch to every sink. A batch is claimed with a
+ * lease in a short transaction, published with no transaction or row locks held, and only marked
+ * published after all sinks accepted it. While any lease is live no other node claims, so only
+ * one node relays at a time; a node that dies mid-batch is replaced once its lease runs out.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private List<UserEventSink> sinks;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.retention-ms:86400000}")
+    private long retentionMillis;
+
+    // Should comfortably exceed the time the sinks take for one batch; a batch still in flight
+    // when its lease runs out may be published twice.
+    @Value("${app.outbox.claim-ms:30000}")
+    private long claimMillis;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() throws Exception {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+
+        List<UserDTOs.UserChangeEvent> events = new ArrayList<>(batch.size());
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            events.add(outboxService.toChangeEvent(outboxEvent));
+            ids.add(outboxEvent.getId());
+        }
+
+        for (UserEventSink sink : sinks) {
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                log.warn("Sink {} rejected outbox batch starting at event {}", sink.getClass().getSimpleName(), ids.get(0), e);
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.claim(ids, null));
+                throw e;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markPublished(ids, LocalDateTime.now()));
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        // The row locks only serialize concurrent claimers and are released when this returns.
+        List<OutboxEvent> batch = outboxEventRepository.findUnpublishedForUpdate(PageRequest.ofSize(batchSize));
+        LocalDateTime now = LocalDateTime.now();
+        if (batch.isEmpty() || outboxEventRepository.existsLiveClaim(now)) {
+            return List.of();
+        }
+        outboxEventRepository.claim(batch.stream().map(OutboxEvent::getId).toList(),
+                now.plusNanos(claimMillis * 1_000_000L));
+        return batch;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:3600000}")
+    public void deletePublished() {
+        outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusNanos(retentionMillis * 1_000_000L));
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.usermanagement.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.OutboxEvent;
+import com.example.usermanagement.repository.OutboxEventRepository;
+import com.example.usermanagement.service.OutboxService;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves long-poll and SSE consumers straight from the outbox table, using the outbox event id
+ * as the cursor, so any node can answer any cursor and a restart loses nothing. Batches handed
+ * over by the relay are only a hint to look again; nodes that are not relaying notice new rows
+ * by polling the highest outbox id while someone is waiting.
+ */
+@Component
+public class UserEventFeed implements UserEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventFeed.class);
+
+    private static final int STREAM_BATCH = 500;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-event-fan-out");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    // Outbox ids are allocated before commit, so a lower id can become visible after a higher one.
+    // Rows younger than this are held back until any such stragglers have had time to commit.
+    @Value("${app.outbox.feed.settle-ms:1000}")
+    private long settleMillis;
+
+    @Override
+    public void publish(List<UserDTOs.UserChangeEvent> events) {
+        dispatch();
+    }
+
+    public UserDTOs.UserEventsResponse eventsAfter(long cursor, int max) {
+        LocalDateTime settled = LocalDateTime.now().minusNanos(settleMillis * 1_000_000L);
+        List<UserDTOs.UserChangeEvent> events = new ArrayList<>();
+        long next = cursor;
+        for (OutboxEvent outboxEvent : outboxEventRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.ofSize(max))) {
+            if (outboxEvent.getCreatedAt().isAfter(settled)) {
+                break;
+            }
+            events.add(outboxService.toChangeEvent(outboxEvent));
+            next = outboxEvent.getId();
+        }
+        return new UserDTOs.UserEventsResponse(events, next);
+    }
+
+    /**
+     * Completes with the events after {@code cursor} as soon as there are any, or with whatever
+     * is there (possibly nothing) once {@code timeoutMillis} has passed.
+     */
+    public DeferredResult<UserDTOs.UserEventsResponse> await(long cursor, int max, long timeoutMillis) {
+        DeferredResult<UserDTOs.UserEventsResponse> result = new DeferredResult<>(timeoutMillis,
+                () -> eventsAfter(cursor, max));
+
+        UserDTOs.UserEventsResponse ready = eventsAfter(cursor, max);
+        if (!ready.getEvents().isEmpty() || timeoutMillis == 0) {
+            result.setResult(ready);
+            return result;
+        }
+
+        Waiter waiter = new Waiter(cursor, max, result);
+        result.onTimeout(() -> waiters.remove(waiter));
+        result.onError(e -> waiters.remove(waiter));
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // Covers events that arrived between the first read and registering the waiter.
+        dispatch();
+        return result;
+    }
+
+    public SseEmitter subscribe(long cursor, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        dispatch();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.feed.poll-interval-ms:500}")
+    public void poll() {
+        if (waiters.isEmpty() && subscribers.isEmpty()) {
+            return;
+        }
+        Long maxId = outboxEventRepository.findMaxId();
+        if (maxId != null && maxId > lowestCursor()) {
+            dispatch();
+        }
+    }
+
+    private long lowestCursor() {
+        long lowest = Long.MAX_VALUE;
+        for (Waiter waiter : waiters) {
+            lowest = Math.min(lowest, waiter.cursor());
+        }
+        for (Subscriber subscriber : subscribers) {
+            lowest = Math.min(lowest, subscriber.cursor);
+        }
+        return lowest;
+    }
+
+    private void dispatch() {
+        if (!dispatchPending.compareAndSet(false, true)) {
+            return;
+        }
+        fanOut.execute(() -> {
+            dispatchPending.set(false);
+            try {
+                deliver();
+            } catch (Exception e) {
+                log.warn("Failed to deliver user events", e);
+            }
+        });
+    }
+
+    private void deliver() {
+        for (Waiter waiter : waiters) {
+            UserDTOs.UserEventsResponse response = eventsAfter(waiter.cursor(), waiter.max());
+            if (!response.getEvents().isEmpty()) {
+                waiter.result().setResult(response);
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            catchUp(subscriber);
+        }
+    }
+
+    private void catchUp(Subscriber subscriber) {
+        UserDTOs.UserEventsResponse response;
+        do {
+            response = eventsAfter(subscriber.cursor, STREAM_BATCH);
+            for (UserDTOs.UserChangeEvent event : response.getEvents()) {
+                if (!send(subscriber, event)) {
+                    return;
+                }
+            }
+        } while (response.getEvents().size() == STREAM_BATCH);
+    }
+
+    private boolean send(Subscriber subscriber, UserDTOs.UserChangeEvent event) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getEventId()))
+                    .name(event.getType().name())
+                    .data(event));
+            subscriber.cursor = event.getEventId();
+            return true;
+        } catch (Exception e) {
+            log.debug("Dropping SSE subscriber", e);
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private record Waiter(long cursor, int max, DeferredResult<UserDTOs.UserEventsResponse> result) {
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private volatile long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
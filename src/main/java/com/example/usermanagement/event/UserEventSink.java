@@ -0,0 +1,15 @@
+package com.example.usermanagement.event;
+
+import com.example.usermanagement.dto.UserDTOs;
+
+import java.util.List;
+
+/**
+ * Destination for user change events drained from the outbox. Batches arrive in outbox order;
+ * a batch may be delivered again if the relay fails before marking it published, so sinks
+ * should deduplicate on {@code eventId} where that matters.
+ */
+public interface UserEventSink {
+
+    void publish(List<UserDTOs.UserChangeEvent> events) throws Exception;
+}
@@ -1,34 +1,135 @@
 package com.example.usermanagement.exception;
 
+import org.springframework.http.HttpStatus;
+
 public class CustomExceptions {
 
-    public static class ResourceNotFoundException extends RuntimeException {
-        public ResourceNotFoundException(String message) {
-            super(message);
+    public enum ErrorCode {
+        NOT_FOUND(HttpStatus.NOT_FOUND),
+        DUPLICATE_RESOURCE(HttpStatus.CONFLICT),
+        INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED),
+        UNAUTHORIZED(HttpStatus.UNAUTHORIZED),
+        FORBIDDEN(HttpStatus.FORBIDDEN),
+        FILE_UPLOAD(HttpStatus.BAD_REQUEST),
+        BAD_REQUEST(HttpStatus.BAD_REQUEST),
+        TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS);
+
+        private final HttpStatus status;
+
+        ErrorCode(HttpStatus status) {
+            this.status = status;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
         }
     }
 
-    public static class DuplicateResourceException extends RuntimeException {
-        public DuplicateResourceException(String message) {
-            super(message);
+    /**
+     * Base for expected outcomes (404s, failed logins, duplicates). These are thrown on hot paths,
+     * so by default they skip stack trace capture and only format their message when it is read.
+     * Messages use {@code %s} placeholders only.
+     */
+    public abstract static class ApiException extends RuntimeException {
+        private static final Object[] NO_ARGS = {};
+
+        private final ErrorCode code;
+        private final String template;
+        private final Object[] args;
+        private String message;
+
+        protected ApiException(ErrorCode code, String template, Object... args) {
+            this(code, null, false, template, args);
+        }
+
+        protected ApiException(ErrorCode code, Throwable cause, boolean writableStackTrace, String template, Object... args) {
+            super(null, cause, false, writableStackTrace);
+            this.code = code;
+            this.template = template;
+            this.args = args != null ? args : NO_ARGS;
+        }
+
+        public ErrorCode getCode() {
+            return code;
+        }
+
+        @Override
+        public String getMessage() {
+            String result = message;
+            if (result == null) {
+                result = args.length == 0 ? template : format(template, args);
+                message = result;
+            }
+            return result;
+        }
+
+        private static String format(String template, Object[] args) {
+            StringBuilder sb = new StringBuilder(template.length() + 16 * args.length);
+            int from = 0;
+            int next = 0;
+            int at;
+            while (next < args.length && (at = template.indexOf("%s", from)) >= 0) {
+                sb.append(template, from, at).append(args[next++]);
+                from = at + 2;
+            }
+            return sb.append(template, from, template.length()).toString();
         }
     }
 
-    public static class InvalidCredentialsException extends RuntimeException {
-        public InvalidCredentialsException(String message) {
-            super(message);
+    public static class ResourceNotFoundException extends ApiException {
+        public ResourceNotFoundException(String message, Object... args) {
+            super(ErrorCode.NOT_FOUND, message, args);
         }
     }
 
-    public static class FileUploadException extends RuntimeException {
-        public FileUploadException(String message) {
-            super(message);
+    public static class DuplicateResourceException extends ApiException {
+        public DuplicateResourceException(String message, Object... args) {
+            super(ErrorCode.DUPLICATE_RESOURCE, message, args);
         }
     }
 
-    public static class UnauthorizedException extends RuntimeException {
-        public UnauthorizedException(String message) {
-            super(message);
+    public static class InvalidCredentialsException extends ApiException {
+        /** Shared instance for failed logins; safe to reuse because it carries no stack or suppressed state. */
+        public static final InvalidCredentialsException LOGIN_FAILED =
+                new InvalidCredentialsException("Invalid email or password");
+
+        public InvalidCredentialsException(String message, Object... args) {
+            super(ErrorCode.INVALID_CREDENTIALS, message, args);
+        }
+    }
+
+    public static class FileUploadException extends ApiException {
+        public FileUploadException(String message, Object... args) {
+            super(ErrorCode.FILE_UPLOAD, message, args);
+        }
+
+        public FileUploadException(String message, Throwable cause) {
+            super(ErrorCode.FILE_UPLOAD, cause, true, message);
+        }
+    }
+
+    public static class UnauthorizedException extends ApiException {
+        public UnauthorizedException(String message, Object... args) {
+            super(ErrorCode.UNAUTHORIZED, message, args);
+        }
+    }
+
+    public static class BadRequestException extends ApiException {
+        public BadRequestException(String message, Object... args) {
+            super(ErrorCode.BAD_REQUEST, message, args);
+        }
+    }
+
+    public static class TooManyRequestsException extends ApiException {
+        private final long retryAfterSeconds;
+
+        public TooManyRequestsException(String message, long retryAfterSeconds) {
+            super(ErrorCode.TOO_MANY_REQUESTS, message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,11 @@
 package com.example.usermanagement.exception;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,54 +19,20 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-    @ExceptionHandler(CustomExceptions.ResourceNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleResourceNotFound(CustomExceptions.ResourceNotFoundException ex) {
+    @ExceptionHandler(CustomExceptions.ApiException.class)
+    public ResponseEntity<ErrorResponse> handleApiException(CustomExceptions.ApiException ex) {
+        HttpStatus status = ex.getCode().getStatus();
         ErrorResponse error = new ErrorResponse(
-                HttpStatus.NOT_FOUND.value(),
+                status.value(),
+                ex.getCode(),
                 ex.getMessage(),
                 LocalDateTime.now()
         );
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
-    }
-
-    @ExceptionHandler(CustomExceptions.DuplicateResourceException.class)
-    public ResponseEntity<ErrorResponse> handleDuplicateResource(CustomExceptions.DuplicateResourceException ex) {
-        ErrorResponse error = new ErrorResponse(
-                HttpStatus.CONFLICT.value(),
-                ex.getMessage(),
-                LocalDateTime.now()
-        );
-        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
-    }
-
-    @ExceptionHandler(CustomExceptions.InvalidCredentialsException.class)
-    public ResponseEntity<ErrorResponse> handleInvalidCredentials(CustomExceptions.InvalidCredentialsException ex) {
-        ErrorResponse error = new ErrorResponse(
-                HttpStatus.UNAUTHORIZED.value(),
-                ex.getMessage(),
-                LocalDateTime.now()
-        );
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
-    }
-
-    @ExceptionHandler(CustomExceptions.FileUploadException.class)
-    public ResponseEntity<ErrorResponse> handleFileUpload(CustomExceptions.FileUploadException ex) {
-        ErrorResponse error = new ErrorResponse(
-                HttpStatus.BAD_REQUEST.value(),
-                ex.getMessage(),
-                LocalDateTime.now()
-        );
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
-    }
-
-    @ExceptionHandler(CustomExceptions.UnauthorizedException.class)
-    public ResponseEntity<ErrorResponse> handleUnauthorized(CustomExceptions.UnauthorizedException ex) {
-        ErrorResponse error = new ErrorResponse(
-                HttpStatus.UNAUTHORIZED.value(),
-                ex.getMessage(),
-                LocalDateTime.now()
-        );
-        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (ex instanceof CustomExceptions.TooManyRequestsException tooManyRequests) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(tooManyRequests.getRetryAfterSeconds()));
+        }
+        return response.body(error);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -93,6 +63,29 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
+    // Thrown by method security inside the handler, so they reach here before the catch-all below.
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.FORBIDDEN.value(),
+                CustomExceptions.ErrorCode.FORBIDDEN,
+                "Access denied",
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ErrorResponse> handleAuthentication(AuthenticationException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.UNAUTHORIZED.value(),
+                CustomExceptions.ErrorCode.UNAUTHORIZED,
+                "Authentication required",
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex) {
         ErrorResponse error = new ErrorResponse(
@@ -103,13 +96,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class ErrorResponse {
         private int status;
+        private CustomExceptions.ErrorCode code;
         private String message;
         private LocalDateTime timestamp;
 
         public ErrorResponse(int status, String message, LocalDateTime timestamp) {
+            this(status, null, message, timestamp);
+        }
+
+        public ErrorResponse(int status, CustomExceptions.ErrorCode code, String message, LocalDateTime timestamp) {
             this.status = status;
+            this.code = code;
             this.message = message;
             this.timestamp = timestamp;
         }
@@ -122,6 +122,14 @@ public class GlobalExceptionHandler {
             this.status = status;
         }
 
+        public CustomExceptions.ErrorCode getCode() {
+            return code;
+        }
+
+        public void setCode(CustomExceptions.ErrorCode code) {
+            this.code = code;
+        }
+
         public String getMessage() {
             return message;
         }
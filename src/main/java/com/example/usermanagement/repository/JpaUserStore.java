@@ -0,0 +1,103 @@
+package com.example.usermanagement.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import com.example.usermanagement.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "false", matchIfMissing = true)
+public class JpaUserStore implements UserStore {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return userRepository.findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return userRepository.findByEmail(email);
+    }
+
+    @Override
+    public boolean isEmailTaken(String email) {
+        return userRepository.countByEmailIncludingDeleted(email) > 0;
+    }
+
+    @Override
+    public boolean isUsernameTaken(String username) {
+        return userRepository.countByUsernameIncludingDeleted(username) > 0;
+    }
+
+    @Override
+    public User insert(User user) {
+        return userRepository.save(user);
+    }
+
+    @Override
+    public User update(User user) {
+        return userRepository.saveAndFlush(user);
+    }
+
+    @Override
+    public void softDelete(User user) {
+        user.setDeletedAt(LocalDateTime.now());
+        user.setIsActive(false);
+        userRepository.save(user);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return userRepository.findAll();
+    }
+
+    @Override
+    public UserRepository.ListVersion findListVersion() {
+        return userRepository.findListVersion();
+    }
+
+    @Override
+    public List<User> findChangedSince(LocalDateTime since, Long afterId, LocalDateTime until, int limit) {
+        return userRepository.findChangedSince(since, afterId, until, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public List<UserRepository.PurgeCandidate> findPurgeCandidates(LocalDateTime cutoff, LocalDateTime now, int limit) {
+        return userRepository.findPurgeCandidates(cutoff, now, limit);
+    }
+
+    @Override
+    public int claimForPurge(Long id, LocalDateTime now, LocalDateTime until) {
+        return userRepository.claimForPurge(id, now, until);
+    }
+
+    @Override
+    public int incrementPurgeAttempts(Long id) {
+        return userRepository.incrementPurgeAttempts(id);
+    }
+
+    @Override
+    public int clearDeletedProfilePicture(Long id) {
+        return userRepository.clearDeletedProfilePicture(id);
+    }
+
+    @Override
+    public int hardDeleteSoftDeleted(Long id) {
+        return userRepository.hardDeleteSoftDeleted(id);
+    }
+
+    @Override
+    public List<String> findReferencedFileIds(Collection<String> fileIds) {
+        return userRepository.findReferencedFileIds(fileIds);
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.usermanagement.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.usermanagement.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +24,63 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByEmail(String email);
     
     Boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    @Query("SELECT u FROM User u WHERE u.updatedAt >= :since AND (u.updatedAt > :since OR u.id > :afterId) " +
+            "AND u.updatedAt < :until ORDER BY u.updatedAt ASC, u.id ASC")
+    List<User> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Query("SELECT COUNT(u) AS count, MAX(u.updatedAt) AS lastUpdatedAt FROM User u")
+    ListVersion findListVersion();
+
+    // Soft-deleted rows keep their email and username until purged, so uniqueness checks include them.
+    @Query(value = "SELECT COUNT(*) FROM users WHERE email = :email", nativeQuery = true)
+    long countByEmailIncludingDeleted(@Param("email") String email);
+
+    @Query(value = "SELECT COUNT(*) FROM users WHERE username = :username", nativeQuery = true)
+    long countByUsernameIncludingDeleted(@Param("username") String username);
+
+    @Query(value = "SELECT id AS id, profile_picture_file_id AS profilePictureFileId, purge_attempts AS purgeAttempts " +
+            "FROM users WHERE deleted_at IS NOT NULL AND deleted_at < :cutoff " +
+            "AND (purge_claimed_until IS NULL OR purge_claimed_until < :now) " +
+            "ORDER BY deleted_at ASC, id ASC LIMIT :limit", nativeQuery = true)
+    List<PurgeCandidate> findPurgeCandidates(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now,
+                                             @Param("limit") int limit);
+
+    // Only one node can win the claim while it is live; an expired claim (crashed node) can be taken over.
+    @Modifying
+    @Query(value = "UPDATE users SET purge_claimed_until = :until WHERE id = :id AND deleted_at IS NOT NULL " +
+            "AND (purge_claimed_until IS NULL OR purge_claimed_until < :now)", nativeQuery = true)
+    int claimForPurge(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Query(value = "SELECT profile_picture_file_id FROM users WHERE profile_picture_file_id IN (:fileIds)", nativeQuery = true)
+    List<String> findReferencedFileIds(@Param("fileIds") Collection<String> fileIds);
+
+    @Modifying
+    @Query(value = "UPDATE users SET profile_picture_file_id = NULL, profile_picture_url = NULL " +
+            "WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int clearDeletedProfilePicture(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE users SET purge_attempts = purge_attempts + 1, purge_claimed_until = NULL " +
+            "WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int incrementPurgeAttempts(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int hardDeleteSoftDeleted(@Param("id") Long id);
+
+    interface PurgeCandidate {
+        Long getId();
+
+        String getProfilePictureFileId();
+
+        int getPurgeAttempts();
+    }
+
+    interface ListVersion {
+        long getCount();
+
+        LocalDateTime getLastUpdatedAt();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.usermanagement.repository;
+
+import com.example.usermanagement.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * User persistence as {@link com.example.usermanagement.service.UserService} sees it: the single
+ * {@code users} table ({@link JpaUserStore}) or, with {@code app.sharding.enabled=true}, the
+ * {@link com.example.usermanagement.repository.sharding.ShardedUserRepository}.
+ * Lookups never return soft-deleted users, but they still count as taking their email and username.
+ */
+public interface UserStore {
+
+    Optional<User> findById(Long id);
+
+    Optional<User> findByEmail(String email);
+
+    boolean isEmailTaken(String email);
+
+    boolean isUsernameTaken(String username);
+
+    User insert(User user);
+
+    /** Writes the profile fields and picture of an existing user. */
+    User update(User user);
+
+    void softDelete(User user);
+
+    List<User> findAll();
+
+    UserRepository.ListVersion findListVersion();
+
+    List<User> findChangedSince(LocalDateTime since, Long afterId, LocalDateTime until, int limit);
+
+    List<UserRepository.PurgeCandidate> findPurgeCandidates(LocalDateTime cutoff, LocalDateTime now, int limit);
+
+    int claimForPurge(Long id, LocalDateTime now, LocalDateTime until);
+
+    int incrementPurgeAttempts(Long id);
+
+    int clearDeletedProfilePicture(Long id);
+
+    /** Removes a soft-deleted user for good, freeing its email and username. */
+    int hardDeleteSoftDeleted(Long id);
+
+    List<String> findReferencedFileIds(Collection<String> fileIds);
+}
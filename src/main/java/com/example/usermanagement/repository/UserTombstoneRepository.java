@@ -0,0 +1,23 @@
+package com.example.usermanagement.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.usermanagement.entity.UserTombstone;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserTombstoneRepository extends JpaRepository<UserTombstone, Long> {
+
+    @Query("SELECT t FROM UserTombstone t WHERE t.deletedAt >= :since AND (t.deletedAt > :since OR t.id > :afterId) " +
+            "AND t.deletedAt < :until ORDER BY t.deletedAt ASC, t.id ASC")
+    List<UserTombstone> findDeletedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                         @Param("until") LocalDateTime until, Pageable pageable);
+
+    List<UserTombstone> findByDeletedAtAfter(LocalDateTime since);
+}
@@ -0,0 +1,135 @@
+package com.example.usermanagement.repository.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operational tooling for shards: seeding a new shard's id range, backfilling the directory
+ * and moving a shard to another database. Ids never change, so tokens, events and URLs that
+ * reference a user survive a move.
+ */
+public class ShardMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrator.class);
+
+    private static final String COPY_COLUMNS = "id, email, password, first_name, last_name, username, phone_number, " +
+            "profile_picture_url, profile_picture_file_id, is_active, role, deleted_at, purge_attempts, " +
+            "last_login_at, last_seen_at, created_at, updated_at";
+
+    private static final Duration STALE_RESERVATION_AGE = Duration.ofMinutes(10);
+
+    private final ShardRouter router;
+    private final UserDirectory directory;
+
+    public ShardMigrator(ShardRouter router, UserDirectory directory) {
+        this.router = router;
+        this.directory = directory;
+    }
+
+    /** Moves the shard's AUTO_INCREMENT into its id range if no rows were written there yet. */
+    public void initializeShard(int shard) {
+        if (shard == 0) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(router.dataSource(shard));
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        if (maxId == null || maxId < ShardRouter.firstId(shard)) {
+            jdbcTemplate.execute("ALTER TABLE users AUTO_INCREMENT = " + ShardRouter.firstId(shard));
+        }
+    }
+
+    /**
+     * Makes the directory match the shards before lookups trust it: drops reservations of signups
+     * that never finished and registers users it has not seen, such as rows written while sharding
+     * was off or by a signup that died before confirming its reservation.
+     */
+    public void reconcileDirectory(int batchSize) {
+        int released = releaseStaleReservations();
+        int added = 0;
+        for (int shard : router.shardIds()) {
+            added += backfillDirectory(shard, batchSize);
+        }
+        if (released > 0 || added > 0) {
+            log.info("User directory reconciled: released {} stale reservations, registered {} users", released, added);
+        }
+    }
+
+    /** Frees emails and usernames held by signups that never confirmed their reservation. */
+    public int releaseStaleReservations() {
+        return directory.releaseReservedBefore(LocalDateTime.now().minus(STALE_RESERVATION_AGE));
+    }
+
+    /** Registers every user of a shard, including soft-deleted ones, that the directory does not know yet. */
+    public int backfillDirectory(int shard, int batchSize) {
+        JdbcTemplate source = new JdbcTemplate(router.dataSource(shard));
+        long after = ShardRouter.firstId(shard) - 1;
+        int added = 0;
+        while (true) {
+            List<Object[]> rows = source.query(
+                    "SELECT email, username, id FROM users WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getString(1), rs.getString(2), rs.getLong(3)},
+                    after, ShardRouter.lastId(shard), batchSize);
+            if (rows.isEmpty()) {
+                return added;
+            }
+            added += directory.registerMissing(rows);
+            after = (Long) rows.get(rows.size() - 1)[2];
+        }
+    }
+
+    /**
+     * Copies every row of a shard to {@code target} (schema already migrated), verifies the row count
+     * and then routes the shard there. Writes to the shard must be paused while this runs; the source
+     * rows are left in place for the operator to drop once the new config is deployed.
+     */
+    public long moveShard(int shard, DataSource target, int batchSize) {
+        if (shard == 0) {
+            throw new IllegalArgumentException("Shard 0 holds the directory and shared tables and cannot be moved");
+        }
+        JdbcTemplate source = new JdbcTemplate(router.dataSource(shard));
+        JdbcTemplate destination = new JdbcTemplate(target);
+        String insert = "INSERT INTO users (" + COPY_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        long after = ShardRouter.firstId(shard) - 1;
+        long copied = 0;
+        while (true) {
+            List<Object[]> rows = source.query(
+                    "SELECT " + COPY_COLUMNS + " FROM users WHERE id > ? AND id <= ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> {
+                        Object[] row = new Object[17];
+                        for (int i = 0; i < row.length; i++) {
+                            Object value = rs.getObject(i + 1);
+                            row[i] = value instanceof LocalDateTime dateTime ? Timestamp.valueOf(dateTime) : value;
+                        }
+                        return row;
+                    },
+                    after, ShardRouter.lastId(shard), batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            destination.batchUpdate(insert, new ArrayList<>(rows));
+            copied += rows.size();
+            after = ((Number) rows.get(rows.size() - 1)[0]).longValue();
+            log.info("Shard {}: copied {} rows (last id {})", shard, copied, after);
+        }
+
+        String countSql = "SELECT COUNT(*) FROM users WHERE id >= ? AND id <= ?";
+        Long sourceCount = source.queryForObject(countSql, Long.class, ShardRouter.firstId(shard), ShardRouter.lastId(shard));
+        Long targetCount = destination.queryForObject(countSql, Long.class, ShardRouter.firstId(shard), ShardRouter.lastId(shard));
+        if (!sourceCount.equals(targetCount)) {
+            throw new IllegalStateException("Shard " + shard + " copy incomplete: source has " + sourceCount +
+                    " rows, target has " + targetCount);
+        }
+        router.remap(shard, target);
+        initializeShard(shard);
+        return copied;
+    }
+}
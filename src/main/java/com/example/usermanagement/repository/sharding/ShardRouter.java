@@ -0,0 +1,86 @@
+package com.example.usermanagement.repository.sharding;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maps user ids to shards. The shard number lives in the id's high bits: every shard's
+ * {@code users} AUTO_INCREMENT starts at {@link #firstId(int)}, so ids stay globally unique and
+ * existing single-database ids (all below 2^40) belong to shard 0.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    public static final int SHARD_SHIFT = 40;
+
+    private volatile Map<Integer, DataSource> shards;
+    private final int[] writableShards;
+
+    public ShardRouter(Map<Integer, DataSource> shards, Collection<Integer> writableShards) {
+        if (!shards.containsKey(0)) {
+            throw new IllegalArgumentException("Shard 0 must be configured");
+        }
+        if (writableShards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard must accept new users");
+        }
+        this.shards = Collections.unmodifiableMap(new TreeMap<>(shards));
+        this.writableShards = writableShards.stream().mapToInt(Integer::intValue).sorted().toArray();
+        for (int shard : this.writableShards) {
+            dataSource(shard);
+        }
+    }
+
+    public static int shardOf(long userId) {
+        return (int) (userId >>> SHARD_SHIFT);
+    }
+
+    public static long firstId(int shard) {
+        return ((long) shard << SHARD_SHIFT) + 1;
+    }
+
+    public static long lastId(int shard) {
+        return firstId(shard + 1) - 1;
+    }
+
+    public int shardForNewUser(String email) {
+        return writableShards[Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), writableShards.length)];
+    }
+
+    public DataSource dataSource(int shard) {
+        DataSource dataSource = shards.get(shard);
+        if (dataSource == null) {
+            throw new IllegalStateException("Unknown shard " + shard);
+        }
+        return dataSource;
+    }
+
+    public DataSource dataSourceFor(long userId) {
+        return dataSource(shardOf(userId));
+    }
+
+    public Set<Integer> shardIds() {
+        return shards.keySet();
+    }
+
+    /** Points a shard at a new database once its rows have been copied there. */
+    public synchronized void remap(int shard, DataSource target) {
+        dataSource(shard);
+        Map<Integer, DataSource> updated = new TreeMap<>(shards);
+        updated.put(shard, target);
+        shards = Collections.unmodifiableMap(updated);
+    }
+
+    /** Closes the pools this router owns; shard 0 is the application datasource and is left alone. */
+    @Override
+    public void close() throws Exception {
+        for (Map.Entry<Integer, DataSource> entry : shards.entrySet()) {
+            if (entry.getKey() != 0 && entry.getValue() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package com.example.usermanagement.repository.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.CustomExceptions;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.repository.UserStore;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code users} access spread over several databases. Single-user operations go to the shard encoded
+ * in the id (via the {@link UserDirectory} for email and username); listing and search query every
+ * shard in parallel and merge the results on id, which is a valid keyset order across shards.
+ * With sharding enabled this is the {@link UserStore} behind the user service.
+ * <p>
+ * A caller's transaction only spans shard 0, which holds the directory. Writes to other shards
+ * commit on their own, so each one registers an undo that runs if that transaction rolls back.
+ */
+public class ShardedUserRepository implements UserStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedUserRepository.class);
+
+    private static final String COLUMNS = "id, email, password, first_name, last_name, username, phone_number, " +
+            "profile_picture_url, profile_picture_file_id, is_active, role, deleted_at, purge_attempts, " +
+            "last_login_at, last_seen_at, created_at, updated_at";
+
+    private static final RowMapper<User> USER_ROW_MAPPER = ShardedUserRepository::mapUser;
+
+    private final ShardRouter router;
+    private final UserDirectory directory;
+    private final ExecutorService scatterExecutor;
+    private final Map<DataSource, JdbcTemplate> jdbcTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Scatter queries run one shard on the calling thread and the rest on a pool of
+     * {@code scatterThreads}; once {@code scatterQueueCapacity} shard queries are waiting, callers
+     * run further ones themselves instead of queueing without bound.
+     */
+    public ShardedUserRepository(ShardRouter router, UserDirectory directory, int scatterThreads, int scatterQueueCapacity) {
+        this.router = router;
+        this.directory = directory;
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(scatterThreads, scatterThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(scatterQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "shard-scatter-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Shard scatter pool is shut down");
+                    }
+                    task.run();
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.scatterExecutor = executor;
+    }
+
+    @Override
+    public User insert(User user) {
+        if (directory.existsByEmail(user.getEmail())) {
+            throw new CustomExceptions.DuplicateResourceException("Email already exists");
+        }
+        if (user.getUsername() != null && directory.existsByUsername(user.getUsername())) {
+            throw new CustomExceptions.DuplicateResourceException("Username already exists");
+        }
+
+        long reservation;
+        try {
+            reservation = directory.reserve(user.getEmail(), user.getUsername());
+        } catch (DuplicateKeyException e) {
+            // Lost a race with a concurrent signup for the same email or username.
+            throw new CustomExceptions.DuplicateResourceException("Email or username already exists");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        int shardId = router.shardForNewUser(user.getEmail());
+        JdbcTemplate shard = jdbc(shardId);
+        Long id = null;
+        try {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            shard.update(con -> {
+                PreparedStatement ps = con.prepareStatement("INSERT INTO users (email, password, first_name, last_name, " +
+                        "username, phone_number, profile_picture_url, profile_picture_file_id, is_active, role, " +
+                        "purge_attempts, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, user.getEmail());
+                ps.setString(2, user.getPassword());
+                ps.setString(3, user.getFirstName());
+                ps.setString(4, user.getLastName());
+                ps.setString(5, user.getUsername());
+                ps.setString(6, user.getPhoneNumber());
+                ps.setString(7, user.getProfilePictureUrl());
+                ps.setString(8, user.getProfilePictureFileId());
+                ps.setBoolean(9, !Boolean.FALSE.equals(user.getIsActive()));
+                ps.setString(10, (user.getRole() != null ? user.getRole() : Role.USER).name());
+                ps.setTimestamp(11, Timestamp.valueOf(now));
+                ps.setTimestamp(12, Timestamp.valueOf(now));
+                return ps;
+            }, keyHolder);
+            id = Objects.requireNonNull(keyHolder.getKey()).longValue();
+            directory.confirm(reservation, id);
+        } catch (RuntimeException e) {
+            if (id != null) {
+                shard.update("DELETE FROM users WHERE id = ?", id);
+            }
+            directory.release(reservation);
+            throw e;
+        }
+        long insertedId = id;
+        undoOnRollback(shardId, () -> shard.update("DELETE FROM users WHERE id = ?", insertedId));
+        user.setId(id);
+        return user;
+    }
+
+    /**
+     * The directory and the row can live in different databases, so the username moves in the
+     * directory first and is moved back if the row update fails.
+     */
+    @Override
+    public User update(User user) {
+        User current = findById(user.getId())
+                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", user.getId()));
+        boolean usernameChanged = !Objects.equals(current.getUsername(), user.getUsername());
+        if (usernameChanged) {
+            try {
+                directory.changeUsername(user.getId(), user.getUsername());
+            } catch (DuplicateKeyException e) {
+                throw new CustomExceptions.DuplicateResourceException("Username already exists");
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int updated = jdbcFor(user.getId()).update("UPDATE users SET first_name = ?, last_name = ?, username = ?, " +
+                            "phone_number = ?, profile_picture_url = ?, profile_picture_file_id = ?, updated_at = ? " +
+                            "WHERE id = ? AND deleted_at IS NULL",
+                    user.getFirstName(), user.getLastName(), user.getUsername(), user.getPhoneNumber(),
+                    user.getProfilePictureUrl(), user.getProfilePictureFileId(), Timestamp.valueOf(now), user.getId());
+            if (updated == 0) {
+                throw new CustomExceptions.ResourceNotFoundException("User not found with id: %s", user.getId());
+            }
+        } catch (RuntimeException e) {
+            if (usernameChanged) {
+                directory.changeUsername(user.getId(), current.getUsername());
+            }
+            throw e;
+        }
+        undoOnRollback(ShardRouter.shardOf(user.getId()), () -> jdbcFor(current.getId()).update(
+                "UPDATE users SET first_name = ?, last_name = ?, username = ?, phone_number = ?, " +
+                        "profile_picture_url = ?, profile_picture_file_id = ?, updated_at = ? WHERE id = ?",
+                current.getFirstName(), current.getLastName(), current.getUsername(), current.getPhoneNumber(),
+                current.getProfilePictureUrl(), current.getProfilePictureFileId(),
+                Timestamp.valueOf(current.getUpdatedAt()), current.getId()));
+        user.setUpdatedAt(now);
+        return user;
+    }
+
+    @Override
+    public void softDelete(User user) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int deleted = jdbcFor(user.getId()).update("UPDATE users SET deleted_at = ?, is_active = FALSE, updated_at = ? " +
+                "WHERE id = ? AND deleted_at IS NULL", now, now, user.getId());
+        if (deleted > 0) {
+            boolean wasActive = !Boolean.FALSE.equals(user.getIsActive());
+            Timestamp previousUpdatedAt = Timestamp.valueOf(user.getUpdatedAt());
+            undoOnRollback(ShardRouter.shardOf(user.getId()), () -> jdbcFor(user.getId()).update(
+                    "UPDATE users SET deleted_at = NULL, is_active = ?, updated_at = ? WHERE id = ?",
+                    wasActive, previousUpdatedAt, user.getId()));
+        }
+        user.setIsActive(false);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return first(jdbcFor(id).query("SELECT " + COLUMNS + " FROM users WHERE id = ? AND deleted_at IS NULL",
+                USER_ROW_MAPPER, id));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return directory.findUserIdByEmail(email).flatMap(this::findById);
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return directory.findUserIdByUsername(username).flatMap(this::findById);
+    }
+
+    @Override
+    public boolean isEmailTaken(String email) {
+        return directory.existsByEmail(email);
+    }
+
+    @Override
+    public boolean isUsernameTaken(String username) {
+        return directory.existsByUsername(username);
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>();
+        for (List<User> shardUsers : queryEveryShard("SELECT " + COLUMNS + " FROM users WHERE deleted_at IS NULL",
+                USER_ROW_MAPPER)) {
+            users.addAll(shardUsers);
+        }
+        users.sort(Comparator.comparing(User::getId));
+        return users;
+    }
+
+    @Override
+    public UserRepository.ListVersion findListVersion() {
+        long count = 0;
+        LocalDateTime lastUpdatedAt = null;
+        for (List<ListVersion> versions : queryEveryShard(
+                "SELECT COUNT(*), MAX(updated_at) FROM users WHERE deleted_at IS NULL",
+                (rs, rowNum) -> new ListVersion(rs.getLong(1), toLocalDateTime(rs.getTimestamp(2))))) {
+            ListVersion version = versions.get(0);
+            count += version.getCount();
+            if (version.getLastUpdatedAt() != null
+                    && (lastUpdatedAt == null || version.getLastUpdatedAt().isAfter(lastUpdatedAt))) {
+                lastUpdatedAt = version.getLastUpdatedAt();
+            }
+        }
+        return new ListVersion(count, lastUpdatedAt);
+    }
+
+    @Override
+    public List<User> findChangedSince(LocalDateTime since, Long afterId, LocalDateTime until, int limit) {
+        List<User> merged = new ArrayList<>();
+        for (List<User> shardUsers : queryEveryShard("SELECT " + COLUMNS + " FROM users WHERE deleted_at IS NULL " +
+                        "AND updated_at >= ? AND (updated_at > ? OR id > ?) AND updated_at < ? ORDER BY updated_at, id LIMIT ?",
+                USER_ROW_MAPPER, Timestamp.valueOf(since), Timestamp.valueOf(since), afterId, Timestamp.valueOf(until), limit)) {
+            merged.addAll(shardUsers);
+        }
+        merged.sort(Comparator.comparing(User::getUpdatedAt).thenComparing(User::getId));
+        return merged.size() <= limit ? merged : new ArrayList<>(merged.subList(0, limit));
+    }
+
+    @Override
+    public List<UserRepository.PurgeCandidate> findPurgeCandidates(LocalDateTime cutoff, LocalDateTime now, int limit) {
+        List<PurgeCandidate> merged = new ArrayList<>();
+        for (List<PurgeCandidate> shardCandidates : queryEveryShard(
+                "SELECT id, profile_picture_file_id, purge_attempts, deleted_at FROM users " +
+                        "WHERE deleted_at IS NOT NULL AND deleted_at < ? " +
+                        "AND (purge_claimed_until IS NULL OR purge_claimed_until < ?) ORDER BY deleted_at, id LIMIT ?",
+                (rs, rowNum) -> new PurgeCandidate(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                        rs.getTimestamp(4).toLocalDateTime()),
+                Timestamp.valueOf(cutoff), Timestamp.valueOf(now), limit)) {
+            merged.addAll(shardCandidates);
+        }
+        merged.sort(Comparator.comparing(PurgeCandidate::deletedAt).thenComparing(PurgeCandidate::id));
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    @Override
+    public int claimForPurge(Long id, LocalDateTime now, LocalDateTime until) {
+        return jdbcFor(id).update("UPDATE users SET purge_claimed_until = ? WHERE id = ? AND deleted_at IS NOT NULL " +
+                "AND (purge_claimed_until IS NULL OR purge_claimed_until < ?)", Timestamp.valueOf(until), id, Timestamp.valueOf(now));
+    }
+
+    @Override
+    public int incrementPurgeAttempts(Long id) {
+        return jdbcFor(id).update("UPDATE users SET purge_attempts = purge_attempts + 1, purge_claimed_until = NULL " +
+                "WHERE id = ? AND deleted_at IS NOT NULL", id);
+    }
+
+    @Override
+    public int clearDeletedProfilePicture(Long id) {
+        return jdbcFor(id).update("UPDATE users SET profile_picture_file_id = NULL, profile_picture_url = NULL " +
+                "WHERE id = ? AND deleted_at IS NOT NULL", id);
+    }
+
+    /**
+     * Drops the directory entry in the caller's transaction and deletes the row last: on another
+     * shard only once that transaction has committed, so a rollback leaves both in place and the
+     * next purge run tries again. A failed delete after commit is retried the same way.
+     */
+    @Override
+    public int hardDeleteSoftDeleted(Long id) {
+        int shard = ShardRouter.shardOf(id);
+        String delete = "DELETE FROM users WHERE id = ? AND deleted_at IS NOT NULL";
+        if (shard == 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            int deleted = jdbc(shard).update(delete, id);
+            if (deleted > 0) {
+                directory.remove(id);
+            }
+            return deleted;
+        }
+        Integer softDeleted = jdbc(shard).queryForObject(
+                "SELECT COUNT(*) FROM users WHERE id = ? AND deleted_at IS NOT NULL", Integer.class, id);
+        if (softDeleted == null || softDeleted == 0) {
+            return 0;
+        }
+        directory.remove(id);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    jdbc(shard).update(delete, id);
+                } catch (RuntimeException e) {
+                    log.warn("Could not purge user {} from shard {}; the next run retries", id, shard, e);
+                }
+            }
+        });
+        return softDeleted;
+    }
+
+    @Override
+    public List<String> findReferencedFileIds(Collection<String> fileIds) {
+        if (fileIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(fileIds.size(), "?"));
+        List<String> referenced = new ArrayList<>();
+        for (List<String> shardFileIds : queryEveryShard(
+                "SELECT profile_picture_file_id FROM users WHERE profile_picture_file_id IN (" + placeholders + ")",
+                (rs, rowNum) -> rs.getString(1), fileIds.toArray())) {
+            referenced.addAll(shardFileIds);
+        }
+        return referenced;
+    }
+
+    public KeysetPage findPage(Long afterId, int limit) {
+        return scatter("", new Object[0], afterId, limit);
+    }
+
+    /** Prefix search on email, username, first name and last name across all shards. */
+    public KeysetPage search(String prefix, Long afterId, int limit) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return scatter(" AND (email LIKE ? OR username LIKE ? OR first_name LIKE ? OR last_name LIKE ?)",
+                new Object[]{pattern, pattern, pattern, pattern}, afterId, limit);
+    }
+
+    private KeysetPage scatter(String filter, Object[] filterArgs, Long afterId, int limit) {
+        long after = afterId != null ? afterId : 0;
+        String sql = "SELECT " + COLUMNS + " FROM users WHERE deleted_at IS NULL AND id > ?" + filter +
+                " ORDER BY id LIMIT ?";
+        Object[] args = new Object[filterArgs.length + 2];
+        args[0] = after;
+        System.arraycopy(filterArgs, 0, args, 1, filterArgs.length);
+        args[args.length - 1] = limit + 1;
+
+        List<User> merged = new ArrayList<>();
+        for (List<User> shardUsers : query(router.shardIds().stream().filter(shard -> ShardRouter.lastId(shard) > after).toList(),
+                sql, USER_ROW_MAPPER, args)) {
+            merged.addAll(shardUsers);
+        }
+        merged.sort(Comparator.comparing(User::getId));
+        if (merged.size() <= limit) {
+            return new KeysetPage(merged, null);
+        }
+        List<User> page = new ArrayList<>(merged.subList(0, limit));
+        return new KeysetPage(page, page.get(page.size() - 1).getId());
+    }
+
+    private <T> List<List<T>> queryEveryShard(String sql, RowMapper<T> rowMapper, Object... args) {
+        return query(router.shardIds(), sql, rowMapper, args);
+    }
+
+    private <T> List<List<T>> query(Collection<Integer> shards, String sql, RowMapper<T> rowMapper, Object... args) {
+        List<Integer> remote = new ArrayList<>(shards);
+        if (remote.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int local = remote.remove(remote.size() - 1);
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (int shard : remote) {
+            futures.add(CompletableFuture.supplyAsync(() -> jdbc(shard).query(sql, rowMapper, args), scatterExecutor));
+        }
+        List<T> localResult;
+        try {
+            localResult = jdbc(local).query(sql, rowMapper, args);
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        List<List<T>> results = new ArrayList<>(futures.size() + 1);
+        for (CompletableFuture<List<T>> future : futures) {
+            results.add(future.join());
+        }
+        results.add(localResult);
+        return results;
+    }
+
+    private void undoOnRollback(int shard, Runnable undo) {
+        if (shard == 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    undo.run();
+                } catch (RuntimeException e) {
+                    log.error("Could not undo a write to shard {} after rollback", shard, e);
+                }
+            }
+        });
+    }
+
+    private JdbcTemplate jdbcFor(long userId) {
+        return jdbc(ShardRouter.shardOf(userId));
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return jdbcTemplates.computeIfAbsent(router.dataSource(shard), JdbcTemplate::new);
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.shutdownNow();
+    }
+
+    static User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setPassword(rs.getString("password"));
+        user.setFirstName(rs.getString("first_name"));
+        user.setLastName(rs.getString("last_name"));
+        user.setUsername(rs.getString("username"));
+        user.setPhoneNumber(rs.getString("phone_number"));
+        user.setProfilePictureUrl(rs.getString("profile_picture_url"));
+        user.setProfilePictureFileId(rs.getString("profile_picture_file_id"));
+        user.setIsActive(rs.getBoolean("is_active"));
+        user.setRole(Role.valueOf(rs.getString("role")));
+        user.setDeletedAt(toLocalDateTime(rs.getTimestamp("deleted_at")));
+        user.setPurgeAttempts(rs.getInt("purge_attempts"));
+        user.setLastLoginAt(toLocalDateTime(rs.getTimestamp("last_login_at")));
+        user.setLastSeenAt(toLocalDateTime(rs.getTimestamp("last_seen_at")));
+        user.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        user.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        return user;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static Optional<User> first(List<User> users) {
+        return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+    }
+
+    public record KeysetPage(List<User> users, Long nextAfterId) {
+    }
+
+    private record PurgeCandidate(Long id, String profilePictureFileId, int purgeAttempts, LocalDateTime deletedAt)
+            implements UserRepository.PurgeCandidate {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getProfilePictureFileId() {
+            return profilePictureFileId;
+        }
+
+        @Override
+        public int getPurgeAttempts() {
+            return purgeAttempts;
+        }
+    }
+
+    private record ListVersion(long count, LocalDateTime lastUpdatedAt) implements UserRepository.ListVersion {
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public LocalDateTime getLastUpdatedAt() {
+            return lastUpdatedAt;
+        }
+    }
+}
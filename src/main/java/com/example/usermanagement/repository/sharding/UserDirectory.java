@@ -0,0 +1,108 @@
+package com.example.usermanagement.repository.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Global email/username index kept on shard 0. Its unique keys are what enforce uniqueness
+ * across shards, and lookups by email or username resolve to the owning user id here first.
+ * A signup reserves its entry under a placeholder id before the row exists, so two signups for
+ * the same email cannot both write a row.
+ */
+public class UserDirectory {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserDirectory(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /** Throws {@link org.springframework.dao.DuplicateKeyException} when the email or username is taken. */
+    public void register(String email, String username, long userId) {
+        jdbcTemplate.update("INSERT INTO user_directory (email, username, user_id) VALUES (?, ?, ?)",
+                email, username, userId);
+    }
+
+    /**
+     * Claims the email and username for a user whose row is not written yet and returns the
+     * placeholder id to {@link #confirm} or {@link #release}. Throws
+     * {@link org.springframework.dao.DuplicateKeyException} when either is taken.
+     */
+    public long reserve(String email, String username) {
+        long placeholder = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        jdbcTemplate.update("INSERT INTO user_directory (email, username, user_id, reserved_at) VALUES (?, ?, ?, ?)",
+                email, username, placeholder, Timestamp.valueOf(LocalDateTime.now()));
+        return placeholder;
+    }
+
+    public void confirm(long placeholder, long userId) {
+        if (jdbcTemplate.update("UPDATE user_directory SET user_id = ?, reserved_at = NULL WHERE user_id = ?",
+                userId, placeholder) != 1) {
+            throw new IllegalStateException("Directory reservation " + placeholder + " is gone");
+        }
+    }
+
+    public void release(long placeholder) {
+        jdbcTemplate.update("DELETE FROM user_directory WHERE user_id = ? AND reserved_at IS NOT NULL", placeholder);
+    }
+
+    /** Drops reservations left behind by signups that died before confirming them. */
+    public int releaseReservedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM user_directory WHERE reserved_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    public Optional<Long> findUserIdByEmail(String email) {
+        return first(jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_directory WHERE email = ? AND reserved_at IS NULL", Long.class, email));
+    }
+
+    public Optional<Long> findUserIdByUsername(String username) {
+        return first(jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_directory WHERE username = ? AND reserved_at IS NULL", Long.class, username));
+    }
+
+    /** Also true while a signup holds a reservation for the email. */
+    public boolean existsByEmail(String email) {
+        return count("SELECT COUNT(*) FROM user_directory WHERE email = ?", email) > 0;
+    }
+
+    public boolean existsByUsername(String username) {
+        return count("SELECT COUNT(*) FROM user_directory WHERE username = ?", username) > 0;
+    }
+
+    /** Throws {@link org.springframework.dao.DuplicateKeyException} when the new username is taken. */
+    public void changeUsername(long userId, String username) {
+        jdbcTemplate.update("UPDATE user_directory SET username = ? WHERE user_id = ?", username, userId);
+    }
+
+    public void remove(long userId) {
+        jdbcTemplate.update("DELETE FROM user_directory WHERE user_id = ?", userId);
+    }
+
+    /** Adds entries for users that are not in the directory yet; returns how many were added. */
+    public int registerMissing(List<Object[]> emailUsernameUserId) {
+        int added = 0;
+        for (int count : jdbcTemplate.batchUpdate(
+                "INSERT INTO user_directory (email, username, user_id) SELECT ?, ?, ? FROM DUAL " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM user_directory WHERE user_id = ?)",
+                emailUsernameUserId.stream().map(row -> new Object[]{row[0], row[1], row[2], row[2]}).toList())) {
+            added += Math.max(count, 0);
+        }
+        return added;
+    }
+
+    private long count(String sql, String value) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, value);
+        return count != null ? count : 0;
+    }
+
+    private static Optional<Long> first(List<Long> ids) {
+        return ids.isEmpty() ? Optional.empty() : Optional.of(ids.get(0));
+    }
+}
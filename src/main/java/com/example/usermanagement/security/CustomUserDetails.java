@@ -1,34 +1,59 @@
 package com.example.usermanagement.security;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.User;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
 public class CustomUserDetails implements UserDetails {
 
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final Role role;
+    private final boolean active;
     private final User user;
 
     public CustomUserDetails(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.role = user.getRole() != null ? user.getRole() : Role.USER;
+        this.active = Boolean.TRUE.equals(user.getIsActive());
         this.user = user;
     }
 
+    /**
+     * Principal rebuilt from token claims. It has no password and no {@link User} entity;
+     * callers that need the row must load it themselves.
+     */
+    public CustomUserDetails(Long id, String email, Role role, boolean active) {
+        this.id = id;
+        this.email = email;
+        this.password = null;
+        this.role = role;
+        this.active = active;
+        this.user = null;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -48,10 +73,18 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.getIsActive();
+        return active;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
     }
 
     public User getUser() {
         return user;
     }
-}
\ No newline at end of file
+}
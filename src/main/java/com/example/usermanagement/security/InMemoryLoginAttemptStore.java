@@ -0,0 +1,80 @@
+package com.example.usermanagement.security;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    // Never-locked and soonest-unlocking windows go first, oldest activity breaking ties, so a flood of
+    // new keys cannot push out an active lockout while there is anything else to drop.
+    private static final Comparator<Map.Entry<String, LoginAttemptWindow>> EVICTION_ORDER =
+            Comparator.comparingLong((Map.Entry<String, LoginAttemptWindow> entry) -> entry.getValue().lockedUntil())
+                    .thenComparingLong(entry -> entry.getValue().lastSeen());
+
+    private final ConcurrentHashMap<String, LoginAttemptWindow> windows = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final Object evictionLock = new Object();
+
+    public InMemoryLoginAttemptStore(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public LoginAttemptWindow get(String key) {
+        return windows.get(key);
+    }
+
+    @Override
+    public LoginAttemptWindow update(String key, UnaryOperator<LoginAttemptWindow> updater) {
+        if (windows.size() >= maxKeys && !windows.containsKey(key)) {
+            makeRoom();
+        }
+        return windows.compute(key, (k, current) -> updater.apply(current));
+    }
+
+    @Override
+    public void remove(String key) {
+        windows.remove(key);
+    }
+
+    @Override
+    public int evictIdle(long idleSince) {
+        int evicted = 0;
+        Iterator<Map.Entry<String, LoginAttemptWindow>> iterator = windows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            LoginAttemptWindow window = iterator.next().getValue();
+            if (window.lastSeen() < idleSince && window.lockedUntil() < idleSince) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /** Drops a tenth of the capacity in one pass so a flood of new keys pays for the sort rarely. */
+    private void makeRoom() {
+        synchronized (evictionLock) {
+            int excess = windows.size() - maxKeys + Math.max(1, maxKeys / 10);
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, LoginAttemptWindow>> oldest = windows.entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                    .sorted(EVICTION_ORDER)
+                    .limit(excess)
+                    .toList();
+            for (Map.Entry<String, LoginAttemptWindow> entry : oldest) {
+                windows.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return windows.size();
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.usermanagement.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +16,8 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.usermanagement.service.UserActivityTracker;
+
 import java.io.IOException;
 
 @Component
@@ -23,35 +29,80 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private UserActivityTracker userActivityTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer parseVerifyTimer;
+    private Timer userLoadTimer;
+
+    @PostConstruct
+    void registerTimers() {
+        parseVerifyTimer = stageTimer("parse_verify");
+        userLoadTimer = stageTimer("user_load");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        Claims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
+            Timer.Sample sample = Timer.start(meterRegistry);
             try {
-                username = jwtUtil.extractUsername(token);
+                Claims parsed = jwtUtil.extractAllClaims(token);
+                if (!tokenRevocationList.isRevoked(jwtUtil.extractUserId(parsed), parsed.getId(), parsed.getIssuedAt())) {
+                    claims = parsed;
+                }
             } catch (Exception e) {
                 logger.error("JWT Token extraction failed", e);
+            } finally {
+                sample.stop(parseVerifyTimer);
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            
-            if (jwtUtil.validateToken(token, userDetails)) {
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = jwtUtil.toPrincipal(claims);
+
+            if (userDetails == null) {
+                // Tokens issued before claims were embedded still need the user row.
+                Timer.Sample loadSample = Timer.start(meterRegistry);
+                try {
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                } finally {
+                    loadSample.stop(userLoadTimer);
+                }
+            }
+
+            if (userDetails.isEnabled()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                if (userDetails instanceof CustomUserDetails customUserDetails) {
+                    userActivityTracker.recordSeen(customUserDetails.getId());
+                }
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("jwt.filter")
+                .description("Time spent in each stage of JWT authentication")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
\ No newline at end of file
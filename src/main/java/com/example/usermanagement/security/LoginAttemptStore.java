@@ -0,0 +1,24 @@
+package com.example.usermanagement.security;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage for login attempt windows. The in-memory implementation keeps state per node;
+ * replace the bean with a shared implementation to enforce limits across a cluster.
+ */
+public interface LoginAttemptStore {
+
+    LoginAttemptWindow get(String key);
+
+    /**
+     * Atomically applies {@code updater} to the window stored under {@code key}. The updater
+     * receives {@code null} when no window exists and may return {@code null} to remove it.
+     */
+    LoginAttemptWindow update(String key, UnaryOperator<LoginAttemptWindow> updater);
+
+    void remove(String key);
+
+    int evictIdle(long idleSince);
+
+    int size();
+}
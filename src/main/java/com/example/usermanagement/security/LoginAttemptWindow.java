@@ -0,0 +1,41 @@
+package com.example.usermanagement.security;
+
+public record LoginAttemptWindow(
+        long windowStart,
+        int previousCount,
+        int currentCount,
+        int violations,
+        long lockedUntil,
+        long lastSeen) {
+
+    public static LoginAttemptWindow empty(long now, long windowMillis) {
+        return new LoginAttemptWindow(now - (now % windowMillis), 0, 0, 0, 0L, now);
+    }
+
+    public LoginAttemptWindow roll(long now, long windowMillis) {
+        long elapsed = now - windowStart;
+        if (elapsed < windowMillis) {
+            return this;
+        }
+        long alignedStart = now - (now % windowMillis);
+        int previous = elapsed < 2 * windowMillis ? currentCount : 0;
+        return new LoginAttemptWindow(alignedStart, previous, 0, violations, lockedUntil, lastSeen);
+    }
+
+    public double estimatedCount(long now, long windowMillis) {
+        double previousWeight = 1.0 - (double) (now - windowStart) / windowMillis;
+        return previousCount * Math.max(previousWeight, 0.0) + currentCount;
+    }
+
+    public boolean isLocked(long now) {
+        return lockedUntil > now;
+    }
+
+    public LoginAttemptWindow increment(long now) {
+        return new LoginAttemptWindow(windowStart, previousCount, currentCount + 1, violations, lockedUntil, now);
+    }
+
+    public LoginAttemptWindow lock(long now, long lockoutMillis) {
+        return new LoginAttemptWindow(windowStart, previousCount, currentCount, violations + 1, now + lockoutMillis, now);
+    }
+}
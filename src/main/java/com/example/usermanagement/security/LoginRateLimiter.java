@@ -0,0 +1,120 @@
+package com.example.usermanagement.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.exception.CustomExceptions;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+@Component
+public class LoginRateLimiter {
+
+    private static final String IP_PREFIX = "ip:";
+    private static final String ACCOUNT_PREFIX = "account:";
+
+    private final LoginAttemptStore store;
+    private final LongSupplier clock;
+
+    @Value("${security.login.rate-limit.window-ms:60000}")
+    private long windowMillis;
+
+    @Value("${security.login.rate-limit.ip.max-attempts:30}")
+    private int maxAttemptsPerIp;
+
+    @Value("${security.login.rate-limit.account.max-failures:5}")
+    private int maxFailuresPerAccount;
+
+    @Value("${security.login.rate-limit.lockout.base-ms:30000}")
+    private long baseLockoutMillis;
+
+    @Value("${security.login.rate-limit.lockout.max-ms:900000}")
+    private long maxLockoutMillis;
+
+    @Value("${security.login.rate-limit.idle-eviction-ms:600000}")
+    private long idleEvictionMillis;
+
+    @Value("${security.login.rate-limit.allow-list:}")
+    private Set<String> allowList = Set.of();
+
+    @Autowired
+    public LoginRateLimiter(LoginAttemptStore store) {
+        this(store, System::currentTimeMillis);
+    }
+
+    LoginRateLimiter(LoginAttemptStore store, LongSupplier clock) {
+        this.store = store;
+        this.clock = clock;
+    }
+
+    /**
+     * Rejects the attempt if either the client address or the account is over its limit.
+     * Every call counts against the client address, so this must run before any credential work.
+     */
+    public void checkAttempt(String clientIp, String account) {
+        long now = clock.getAsLong();
+
+        LoginAttemptWindow accountWindow = store.get(accountKey(account));
+        if (accountWindow != null && accountWindow.isLocked(now)) {
+            throw tooManyRequests(accountWindow, now);
+        }
+
+        if (clientIp == null || allowList.contains(clientIp)) {
+            return;
+        }
+
+        String ipKey = IP_PREFIX + clientIp;
+        LoginAttemptWindow ipWindow = store.get(ipKey);
+        if (ipWindow != null && ipWindow.isLocked(now)) {
+            throw tooManyRequests(ipWindow, now);
+        }
+        store.update(ipKey, current -> record(current, now, maxAttemptsPerIp));
+    }
+
+    public void recordFailure(String account) {
+        long now = clock.getAsLong();
+        store.update(accountKey(account), current -> record(current, now, maxFailuresPerAccount));
+    }
+
+    public void recordSuccess(String account) {
+        store.remove(accountKey(account));
+    }
+
+    @Scheduled(fixedDelayString = "${security.login.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        store.evictIdle(clock.getAsLong() - idleEvictionMillis);
+    }
+
+    private LoginAttemptWindow record(LoginAttemptWindow current, long now, int limit) {
+        LoginAttemptWindow window = current == null
+                ? LoginAttemptWindow.empty(now, windowMillis)
+                : current.roll(now, windowMillis);
+        if (window.isLocked(now)) {
+            return window;
+        }
+        window = window.increment(now);
+        if (window.estimatedCount(now, windowMillis) >= limit) {
+            window = window.lock(now, lockoutFor(window.violations()));
+        }
+        return window;
+    }
+
+    private long lockoutFor(int previousViolations) {
+        int shift = Math.min(previousViolations, 20);
+        return Math.min(baseLockoutMillis << shift, maxLockoutMillis);
+    }
+
+    private CustomExceptions.TooManyRequestsException tooManyRequests(LoginAttemptWindow window, long now) {
+        long retryAfterSeconds = Math.max(1, (window.lockedUntil() - now + 999) / 1000);
+        return new CustomExceptions.TooManyRequestsException(
+                "Too many login attempts, try again later", retryAfterSeconds);
+    }
+
+    private static String accountKey(String account) {
+        return ACCOUNT_PREFIX + (account == null ? "" : account.toLowerCase(Locale.ROOT));
+    }
+}
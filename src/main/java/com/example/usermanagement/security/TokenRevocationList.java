@@ -0,0 +1,109 @@
+package com.example.usermanagement.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.usermanagement.entity.RevokedAccessToken;
+import com.example.usermanagement.entity.UserTombstone;
+import com.example.usermanagement.repository.RevokedAccessTokenRepository;
+import com.example.usermanagement.repository.UserTombstoneRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocation state for access tokens: a per-user "issued before" cutoff and a denylist of
+ * individual token ids. Entries only need to live as long as an access token can, so both maps
+ * are pruned once that lifetime has passed. Deletions and logouts on any node reach every node
+ * through the shared {@code user_tombstones} and {@code revoked_access_tokens} tables, polled
+ * every few seconds.
+ */
+@Component
+public class TokenRevocationList {
+
+    // issuedAt has second precision, so cutoffs from tombstones are rounded up past the deletion second.
+    private static final long CLOCK_SLACK_MS = 1000;
+    // Re-reads a little before the last sync so rows committed late (revoked_at set before commit) are not missed.
+    private static final long SYNC_OVERLAP_MS = 30000;
+
+    private final ConcurrentHashMap<Long, Long> notBefore = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> deniedTokenIds = new ConcurrentHashMap<>();
+    private volatile LocalDateTime tokensSyncedUntil;
+
+    @Autowired
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @Autowired
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    @Value("${jwt.expiration}")
+    private Long expiration;
+
+    public void revokeAllIssuedBefore(Long userId, long epochMillis) {
+        notBefore.merge(userId, epochMillis, Math::max);
+    }
+
+    /** Denies the token here at once and on other nodes from their next sync. */
+    public void revoke(String tokenId, Date expiresAt) {
+        if (tokenId != null && expiresAt != null) {
+            deniedTokenIds.put(tokenId, expiresAt.getTime());
+            revokedAccessTokenRepository.save(new RevokedAccessToken(tokenId, toLocalDateTime(expiresAt.getTime()),
+                    LocalDateTime.now()));
+        }
+    }
+
+    public boolean isRevoked(Long userId, String tokenId, Date issuedAt) {
+        if (tokenId != null && deniedTokenIds.containsKey(tokenId)) {
+            return true;
+        }
+        Long cutoff = userId != null ? notBefore.get(userId) : null;
+        // issuedAt has second precision, so a token issued in the same second as the cutoff is also rejected.
+        return cutoff != null && (issuedAt == null || issuedAt.getTime() < cutoff);
+    }
+
+    /** Picks up users deleted on other nodes while their access tokens can still be valid. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public void syncDeletedUsers() {
+        LocalDateTime since = LocalDateTime.now().minusNanos(expiration * 1_000_000L);
+        for (UserTombstone tombstone : userTombstoneRepository.findByDeletedAtAfter(since)) {
+            long deletedAt = toEpochMillis(tombstone.getDeletedAt());
+            revokeAllIssuedBefore(tombstone.getUserId(), deletedAt + CLOCK_SLACK_MS);
+        }
+    }
+
+    /** Picks up access tokens logged out on other nodes. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public void syncRevokedTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = tokensSyncedUntil != null
+                ? tokensSyncedUntil.minusNanos(SYNC_OVERLAP_MS * 1_000_000L)
+                : now.minusNanos(expiration * 1_000_000L);
+        for (RevokedAccessToken token : revokedAccessTokenRepository.findByRevokedAtAfter(since)) {
+            deniedTokenIds.put(token.getTokenId(), toEpochMillis(token.getExpiresAt()));
+        }
+        tokensSyncedUntil = now;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.revocation.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        deniedTokenIds.values().removeIf(expiresAt -> expiresAt < now);
+        notBefore.values().removeIf(cutoff -> cutoff + expiration < now);
+        revokedAccessTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
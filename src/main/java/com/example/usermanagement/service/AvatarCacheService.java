@@ -0,0 +1,321 @@
+package com.example.usermanagement.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Bounded on-disk LRU cache of profile pictures keyed by the image backend's file id. File ids
+ * change on every upload, so cached bytes never go stale and the file id doubles as the ETag.
+ * Evicted files are deleted only after a delay, because the servlet container's sendfile opens
+ * the file by name after the request handler has returned.
+ */
+@Service
+public class AvatarCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarCacheService.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final LinkedHashMap<String, CachedAvatar> index = new LinkedHashMap<>(256, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<CachedAvatar>>> inFlight = new ConcurrentHashMap<>();
+    private final ArrayDeque<PendingDelete> pendingDeletes = new ArrayDeque<>();
+    private long totalBytes;
+    private HttpClient httpClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.avatar-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.avatar-cache.directory:./data/avatar-cache}")
+    private Path directory;
+
+    @Value("${app.avatar-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    @Value("${app.avatar-cache.max-file-bytes:10485760}")
+    private long maxFileBytes;
+
+    @Value("${app.avatar-cache.fetch-timeout-ms:5000}")
+    private long fetchTimeoutMillis;
+
+    // Must exceed the time between choosing a file and the container opening it for sendfile.
+    @Value("${app.avatar-cache.delete-delay-ms:60000}")
+    private long deleteDelayMillis;
+
+    @PostConstruct
+    void loadIndex() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(fetchTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        files.stream()
+                .sorted(Comparator.comparingLong(AvatarCacheService::lastModified))
+                .forEach(this::indexExisting);
+        meterRegistry.gauge("avatar.cache.bytes", this, cache -> cache.totalBytes());
+        log.info("Avatar cache at {} holds {} files ({} bytes)", directory.toAbsolutePath(), index.size(), totalBytes());
+    }
+
+    /** Stores freshly uploaded bytes so the first avatar request after an upload is already a hit. */
+    public void store(String fileId, MultipartFile file) {
+        if (!enabled || fileId == null) {
+            return;
+        }
+        try (InputStream content = file.getInputStream()) {
+            write(fileId, file.getContentType(), content);
+        } catch (IOException e) {
+            log.warn("Could not cache avatar {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cached file, fetching it from {@code sourceUrl} on a miss. Concurrent misses for the
+     * same file share one fetch. Empty when the cache is disabled or the backend cannot be reached.
+     */
+    public Optional<CachedAvatar> get(String fileId, String sourceUrl) {
+        if (!enabled || fileId == null) {
+            return Optional.empty();
+        }
+        CachedAvatar cached = lookup(fileId);
+        if (cached != null) {
+            meterRegistry.counter("avatar.cache.requests", "result", "hit").increment();
+            return Optional.of(cached);
+        }
+        meterRegistry.counter("avatar.cache.requests", "result", "miss").increment();
+        if (sourceUrl == null) {
+            return Optional.empty();
+        }
+
+        CompletableFuture<Optional<CachedAvatar>> fetch = new CompletableFuture<>();
+        CompletableFuture<Optional<CachedAvatar>> existing = inFlight.putIfAbsent(fileId, fetch);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Optional<CachedAvatar> result = fetch(fileId, sourceUrl);
+            fetch.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            fetch.complete(Optional.empty());
+            throw e;
+        } finally {
+            inFlight.remove(fileId);
+        }
+    }
+
+    /** Deletes evicted files whose delay has passed, unless they have been cached again since. */
+    @Scheduled(fixedDelayString = "${app.avatar-cache.delete-interval-ms:10000}")
+    public void deleteEvicted() {
+        long now = System.currentTimeMillis();
+        List<Path> due = new ArrayList<>();
+        synchronized (index) {
+            while (!pendingDeletes.isEmpty() && pendingDeletes.peek().deleteAt() <= now) {
+                PendingDelete pending = pendingDeletes.poll();
+                CachedAvatar current = index.get(pending.key());
+                if (current == null || !current.path().equals(pending.path())) {
+                    due.add(pending.path());
+                }
+            }
+        }
+        for (Path path : due) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Could not delete evicted avatar {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    public long totalBytes() {
+        synchronized (index) {
+            return totalBytes;
+        }
+    }
+
+    private Optional<CachedAvatar> fetch(String fileId, String sourceUrl) {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(sourceUrl)).timeout(Duration.ofMillis(fetchTimeoutMillis)).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    log.warn("Avatar fetch for {} returned HTTP {}", fileId, response.statusCode());
+                    return Optional.empty();
+                }
+                String contentType = response.headers().firstValue("Content-Type").orElse(null);
+                return Optional.of(write(fileId, contentType, body));
+            }
+        } catch (IOException e) {
+            log.warn("Avatar fetch for {} failed: {}", fileId, e.getMessage());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private CachedAvatar write(String fileId, String contentType, InputStream content) throws IOException {
+        MediaType mediaType = parseMediaType(contentType);
+        String key = key(fileId);
+        Path target = directory.resolve(key + "." + extension(mediaType));
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        long size;
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                size = copyLimited(content, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        CachedAvatar avatar = new CachedAvatar(target, size, mediaType, fileId);
+        add(key, avatar);
+        return avatar;
+    }
+
+    private long copyLimited(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxFileBytes) {
+                throw new IOException("Avatar exceeds " + maxFileBytes + " bytes");
+            }
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+
+    private CachedAvatar lookup(String fileId) {
+        synchronized (index) {
+            return index.get(key(fileId));
+        }
+    }
+
+    private void add(String key, CachedAvatar avatar) {
+        int evicted = 0;
+        synchronized (index) {
+            long deleteAt = System.currentTimeMillis() + deleteDelayMillis;
+            CachedAvatar previous = index.put(key, avatar);
+            if (previous != null) {
+                totalBytes -= previous.size();
+                if (!previous.path().equals(avatar.path())) {
+                    pendingDeletes.add(new PendingDelete(key, previous.path(), deleteAt));
+                    evicted++;
+                }
+            }
+            totalBytes += avatar.size();
+            Iterator<Map.Entry<String, CachedAvatar>> eldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedAvatar> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue().size();
+                pendingDeletes.add(new PendingDelete(entry.getKey(), entry.getValue().path(), deleteAt));
+                evicted++;
+                eldest.remove();
+            }
+        }
+        if (evicted > 0) {
+            meterRegistry.counter("avatar.cache.evictions").increment(evicted);
+        }
+    }
+
+    private void indexExisting(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            if (name.endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(path);
+                return;
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot <= 0) {
+                return;
+            }
+            MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+            add(name.substring(0, dot), new CachedAvatar(path, Files.size(path), mediaType, name.substring(0, dot)));
+        } catch (IOException e) {
+            log.warn("Skipping cached avatar {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static MediaType parseMediaType(String contentType) {
+        try {
+            return contentType != null ? MediaType.parseMediaType(contentType).removeQualityValue() : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    private static String extension(MediaType mediaType) {
+        if (!"image".equals(mediaType.getType())) {
+            return "bin";
+        }
+        String subtype = mediaType.getSubtype();
+        int plus = subtype.indexOf('+');
+        return key(plus > 0 ? subtype.substring(0, plus) : subtype);
+    }
+
+    private static String key(String fileId) {
+        return fileId.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public record AvatarSource(String fileId, String url) {
+    }
+
+    public record CachedAvatar(Path path, long size, MediaType mediaType, String fileId) {
+    }
+
+    private record PendingDelete(String key, Path path, long deleteAt) {
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.usermanagement.service;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -10,14 +13,22 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.example.usermanagement.exception.CustomExceptions;
 
+import io.micrometer.core.annotation.Timed;
+
 import io.imagekit.sdk.ImageKit;
 import io.imagekit.sdk.config.Configuration;
+import io.imagekit.sdk.models.BaseFile;
 import io.imagekit.sdk.models.FileCreateRequest;
+import io.imagekit.sdk.models.GetFileListRequest;
 import io.imagekit.sdk.models.results.Result;
+import io.imagekit.sdk.models.results.ResultList;
 
 @Service
+@Timed(value = "imagekit.requests", histogram = true)
 public class ImageKitService {
 
+	public static final String PROFILE_PICTURE_FOLDER = "user-profiles";
+
 	@Value("${imagekit.private.key}")
 	private String privateKey;
 
@@ -30,14 +41,13 @@ public class ImageKitService {
 	public Map<String, String> uploadImage(MultipartFile file, String folder) {
 		try {
 
-			ImageKit imageKit = ImageKit.getInstance();
-			Configuration config = new Configuration(publicKey, privateKey, urlEndpoint);
-			imageKit.setConfig(config);
+			ImageKit imageKit = client();
 
 			byte[] fileBytes = file.getBytes();
 			String base64 = Base64.getEncoder().encodeToString(fileBytes);
 
 			FileCreateRequest fileCreateRequest = new FileCreateRequest(base64, file.getOriginalFilename());
+			fileCreateRequest.setFolder(folder);
 			Result result = imageKit.upload(fileCreateRequest);
 
 			Map<String, String> response = new HashMap<>();
@@ -47,15 +57,46 @@ public class ImageKitService {
 
 			return response;
 		} catch (Exception e) {
-			throw new CustomExceptions.FileUploadException("Failed to upload image: " + e.getMessage());
+			throw new CustomExceptions.FileUploadException("Failed to upload image: " + e.getMessage(), e);
 		}
 	}
 
 	public void deleteImage(String fileId) {
 		try {
-			ImageKit.getInstance().deleteFile(fileId);
+			client().deleteFile(fileId);
+		} catch (Exception e) {
+			throw new CustomExceptions.FileUploadException("Failed to delete image: " + e.getMessage(), e);
+		}
+	}
+
+	public List<RemoteFile> listFiles(String folder, int skip, int limit) {
+		try {
+			GetFileListRequest request = new GetFileListRequest();
+			request.setPath("/" + folder);
+			request.setType("file");
+			request.setSort("ASC_CREATED");
+			request.setSkip(String.valueOf(skip));
+			request.setLimit(String.valueOf(limit));
+			ResultList resultList = client().getFileList(request);
+
+			List<RemoteFile> files = new ArrayList<>();
+			if (resultList.getResults() != null) {
+				for (BaseFile file : resultList.getResults()) {
+					files.add(new RemoteFile(file.getFileId(), file.getCreatedAt()));
+				}
+			}
+			return files;
 		} catch (Exception e) {
-			throw new CustomExceptions.FileUploadException("Failed to delete image: " + e.getMessage());
+			throw new CustomExceptions.FileUploadException("Failed to list images: " + e.getMessage(), e);
 		}
 	}
+
+	private ImageKit client() {
+		ImageKit imageKit = ImageKit.getInstance();
+		imageKit.setConfig(new Configuration(publicKey, privateKey, urlEndpoint));
+		return imageKit;
+	}
+
+	public record RemoteFile(String fileId, Date createdAt) {
+	}
 }
\ No newline at end of file
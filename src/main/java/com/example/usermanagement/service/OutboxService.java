@@ -0,0 +1,53 @@
+package com.example.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.OutboxEvent;
+import com.example.usermanagement.entity.UserEventType;
+import com.example.usermanagement.repository.OutboxEventRepository;
+
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes a change event in the caller's transaction, so the event exists if and only if
+     * the change committed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long userId, UserEventType type, UserDTOs.UserResponse user) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(userId);
+        event.setEventType(type);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(user));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize user change event", e);
+        }
+        outboxEventRepository.save(event);
+    }
+
+    public UserDTOs.UserChangeEvent toChangeEvent(OutboxEvent event) {
+        try {
+            return new UserDTOs.UserChangeEvent(
+                    event.getId(),
+                    event.getAggregateId(),
+                    event.getEventType(),
+                    event.getCreatedAt(),
+                    objectMapper.readValue(event.getPayload(), UserDTOs.UserResponse.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read user change event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.usermanagement.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.usermanagement.repository.sharding.ShardRouter;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers last-login and last-seen timestamps in memory and writes them in periodic batches.
+ * Repeated activity by the same user between flushes collapses into a single UPDATE, and last-seen
+ * is written at most once per granularity window per user, across flushes as well. With sharding
+ * enabled each batch is split by the shard encoded in the user id.
+ */
+@Component
+public class UserActivityTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(UserActivityTracker.class);
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_login_at = COALESCE(?, last_login_at), last_seen_at = COALESCE(?, last_seen_at) WHERE id = ?";
+    private static final int[] UPDATE_TYPES = {Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT};
+
+    private final ConcurrentHashMap<Long, Activity> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> lastFlushedSeen = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<DataSource, JdbcTemplate> shardTemplates = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @Value("${app.activity.max-pending:100000}")
+    private int maxPending;
+
+    @Value("${app.activity.seen-granularity-ms:60000}")
+    private long seenGranularityMillis;
+
+    @Value("${app.activity.batch-size:500}")
+    private int batchSize;
+
+    public void recordLogin(Long userId) {
+        long now = System.currentTimeMillis();
+        pending.merge(userId, new Activity(now, now), Activity::latest);
+    }
+
+    public void recordSeen(Long userId) {
+        long now = System.currentTimeMillis();
+        Activity current = pending.get(userId);
+        if (current != null) {
+            if (withinGranularity(current.lastSeen(), now)) {
+                return;
+            }
+        } else if (withinGranularity(lastFlushedSeen.get(userId), now)) {
+            return;
+        } else if (pending.size() >= maxPending) {
+            dropped.increment();
+            return;
+        }
+        pending.merge(userId, new Activity(0L, now), Activity::latest);
+    }
+
+    @Scheduled(fixedDelayString = "${app.activity.flush-interval-ms:10000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        lastFlushedSeen.values().removeIf(lastSeen -> !withinGranularity(lastSeen, now));
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        for (Long userId : pending.keySet()) {
+            Activity activity = pending.remove(userId);
+            if (activity == null) {
+                continue;
+            }
+            if (activity.lastSeen() > 0) {
+                lastFlushedSeen.merge(userId, activity.lastSeen(), Math::max);
+            }
+            batch.add(new Object[]{toTimestamp(activity.lastLogin()), toTimestamp(activity.lastSeen()), userId});
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.warn("Dropped {} last-seen updates because the activity buffer was full", droppedCount);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private void write(List<Object[]> batch) {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            write(jdbcTemplate, batch);
+            return;
+        }
+        Map<Integer, List<Object[]>> byShard = new TreeMap<>();
+        for (Object[] row : batch) {
+            byShard.computeIfAbsent(ShardRouter.shardOf((Long) row[2]), shard -> new ArrayList<>()).add(row);
+        }
+        byShard.forEach((shard, rows) ->
+                write(shardTemplates.computeIfAbsent(router.dataSource(shard), JdbcTemplate::new), rows));
+    }
+
+    private void write(JdbcTemplate target, List<Object[]> batch) {
+        try {
+            target.batchUpdate(UPDATE_SQL, batch, UPDATE_TYPES);
+        } catch (Exception e) {
+            log.warn("Failed to write {} activity updates", batch.size(), e);
+        }
+    }
+
+    private boolean withinGranularity(Long lastSeen, long now) {
+        return lastSeen != null && lastSeen >= now - seenGranularityMillis;
+    }
+
+    private static Timestamp toTimestamp(long epochMillis) {
+        return epochMillis > 0 ? new Timestamp(epochMillis) : null;
+    }
+
+    private record Activity(long lastLogin, long lastSeen) {
+
+        Activity latest(Activity other) {
+            return new Activity(Math.max(lastLogin, other.lastLogin), Math.max(lastSeen, other.lastSeen));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.exception.CustomExceptions;
+import com.example.usermanagement.repository.sharding.ShardRouter;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every live user row straight from a forward-only MySQL result set to an output
+ * stream, so memory use does not grow with the table. Password hashes are never selected.
+ * With sharding on, the shards are streamed one after another in shard order; the shard is the
+ * high bits of the id, so the output stays in id order.
+ */
+@Service
+public class UserExportService {
+
+    private static final String[] COLUMNS = {
+            "id", "email", "first_name", "last_name", "username", "phone_number", "profile_picture_url",
+            "is_active", "role", "created_at", "updated_at", "last_login_at", "last_seen_at"
+    };
+    private static final String EXPORT_SQL = "SELECT " + String.join(", ", COLUMNS) +
+            " FROM users WHERE deleted_at IS NULL ORDER BY id";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Connector/J streams rows one at a time only for Integer.MIN_VALUE on a forward-only statement.
+    @Value("${app.export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    public UserExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ObjectProvider<ShardRouter> shardRouter) {
+        this.dataSource = dataSource;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shardRouter = shardRouter.getIfAvailable();
+    }
+
+    public long export(OutputStream out, Format format, Compression compression) throws IOException {
+        OutputStream target = compression == Compression.GZIP ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows;
+        try {
+            rows = format == Format.CSV ? exportCsv(writer) : exportNdjson(writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        return rows;
+    }
+
+    private long exportCsv(Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+        return stream(rs -> {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, stringValue(rs, i));
+            }
+            writer.write('\n');
+        });
+    }
+
+    private long exportNdjson(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        long rows = stream(rs -> {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getLong(1));
+            for (int i = 2; i <= COLUMNS.length; i++) {
+                if (COLUMNS[i - 1].equals("is_active")) {
+                    generator.writeBooleanField(COLUMNS[i - 1], rs.getBoolean(i));
+                } else {
+                    generator.writeStringField(COLUMNS[i - 1], stringValue(rs, i));
+                }
+            }
+            generator.writeEndObject();
+        });
+        generator.writeRaw('\n');
+        generator.flush();
+        return rows;
+    }
+
+    private long stream(RowWriter rowWriter) {
+        Long rows = readOnlyTransaction.execute(status -> {
+            long[] count = {0};
+            for (DataSource source : sources()) {
+                JdbcTemplate streamingJdbcTemplate = new JdbcTemplate(source);
+                streamingJdbcTemplate.setFetchSize(fetchSize);
+                streamingJdbcTemplate.query(EXPORT_SQL, rs -> {
+                    try {
+                        rowWriter.write(rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            }
+            return count[0];
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private List<DataSource> sources() {
+        if (shardRouter == null) {
+            return List.of(dataSource);
+        }
+        return shardRouter.shardIds().stream().sorted().map(shardRouter::dataSource).toList();
+    }
+
+    private static String stringValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.toString();
+        }
+        return value.toString();
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomExceptions.BadRequestException("Unsupported export format: %s", value);
+            }
+        }
+    }
+
+    public enum Compression {
+        NONE,
+        GZIP;
+
+        public static Compression from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomExceptions.BadRequestException("Unsupported compression: %s", value);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.usermanagement.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.repository.UserStore;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Finishes deletions started by {@link UserService#deleteUser}: removes the remote profile
+ * picture and then the row, one user at a time and outside any long-running transaction.
+ * Every step is conditional on the row still being soft-deleted, so reruns are harmless, and each
+ * user is claimed for a lease first so only one node works on it at a time.
+ */
+@Service
+public class UserPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurgeService.class);
+
+    @Autowired
+    private UserStore userStore;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private ImageKitService imageKitService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.purge.grace-period-ms:3600000}")
+    private long gracePeriodMillis;
+
+    @Value("${app.purge.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.purge.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.purge.remote-call-interval-ms:200}")
+    private long remoteCallIntervalMillis;
+
+    @Value("${app.purge.claim-ms:300000}")
+    private long claimMillis;
+
+    @Value("${app.purge.orphan-min-age-ms:86400000}")
+    private long orphanMinAgeMillis;
+
+    @Scheduled(fixedDelayString = "${app.purge.interval-ms:60000}")
+    public void purgeDeletedUsers() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusNanos(gracePeriodMillis * 1_000_000L);
+        List<UserRepository.PurgeCandidate> candidates = userStore.findPurgeCandidates(cutoff, now, batchSize);
+
+        for (UserRepository.PurgeCandidate candidate : candidates) {
+            if (!claim(candidate.getId())) {
+                continue;
+            }
+            if (candidate.getProfilePictureFileId() != null && !deleteRemotePicture(candidate)) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (userStore.hardDeleteSoftDeleted(candidate.getId()) > 0) {
+                    refreshTokenService.revokeAll(candidate.getId());
+                }
+            });
+        }
+    }
+
+    /**
+     * Lists remote profile pictures and deletes those no row references any more, which covers
+     * uploads whose transaction rolled back and purges that gave up on the remote delete.
+     */
+    @Scheduled(cron = "${app.purge.reconcile-cron:0 30 3 * * *}")
+    public void deleteOrphanedPictures() {
+        long minCreatedAt = System.currentTimeMillis() - orphanMinAgeMillis;
+        int skip = 0;
+        int deleted = 0;
+        List<ImageKitService.RemoteFile> page;
+        do {
+            page = imageKitService.listFiles(ImageKitService.PROFILE_PICTURE_FOLDER, skip, batchSize);
+            skip += page.size();
+
+            Set<String> fileIds = page.stream()
+                    .filter(file -> file.createdAt() == null || file.createdAt().getTime() < minCreatedAt)
+                    .map(ImageKitService.RemoteFile::fileId)
+                    .collect(Collectors.toSet());
+            if (fileIds.isEmpty()) {
+                continue;
+            }
+            Set<String> orphans = new HashSet<>(fileIds);
+            userStore.findReferencedFileIds(fileIds).forEach(orphans::remove);
+
+            for (String fileId : orphans) {
+                try {
+                    imageKitService.deleteImage(fileId);
+                    deleted++;
+                    skip--;
+                } catch (Exception e) {
+                    log.warn("Failed to delete orphaned picture {}", fileId, e);
+                }
+                throttle();
+            }
+        } while (page.size() == batchSize);
+
+        if (deleted > 0) {
+            log.info("Deleted {} orphaned profile pictures", deleted);
+        }
+    }
+
+    private boolean claim(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusNanos(claimMillis * 1_000_000L);
+        Integer claimed = transactionTemplate.execute(status -> userStore.claimForPurge(userId, now, until));
+        return claimed != null && claimed > 0;
+    }
+
+    private boolean deleteRemotePicture(UserRepository.PurgeCandidate candidate) {
+        try {
+            imageKitService.deleteImage(candidate.getProfilePictureFileId());
+        } catch (Exception e) {
+            if (candidate.getPurgeAttempts() + 1 < maxAttempts) {
+                transactionTemplate.executeWithoutResult(
+                        status -> userStore.incrementPurgeAttempts(candidate.getId()));
+                log.debug("Remote delete for user {} failed, will retry", candidate.getId(), e);
+                return false;
+            }
+            log.warn("Giving up on remote picture {} of user {}; reconciliation will remove it",
+                    candidate.getProfilePictureFileId(), candidate.getId(), e);
+        } finally {
+            throttle();
+        }
+        transactionTemplate.executeWithoutResult(
+                status -> userStore.clearDeletedProfilePicture(candidate.getId()));
+        return true;
+    }
+
+    private void throttle() {
+        if (remoteCallIntervalMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(remoteCallIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,51 +1,104 @@
 package com.example.usermanagement.service;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.usermanagement.config.ReadYourWritesTracker;
 import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.User;
+import com.example.usermanagement.entity.UserEventType;
+import com.example.usermanagement.entity.UserTombstone;
 import com.example.usermanagement.exception.CustomExceptions;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.repository.UserStore;
+import com.example.usermanagement.repository.UserTombstoneRepository;
 import com.example.usermanagement.security.CustomUserDetails;
 import com.example.usermanagement.security.JwtUtil;
-
+import com.example.usermanagement.security.LoginRateLimiter;
+import com.example.usermanagement.security.TokenRevocationList;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "user.service", histogram = true)
 public class UserService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserStore userStore;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Autowired
-    private AuthenticationManager authenticationManager;
-
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private ImageKitService imageKitService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @Autowired
+    private UserVersionCache userVersionCache;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private UserActivityTracker userActivityTracker;
+
+    @Autowired
+    private AvatarCacheService avatarCacheService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.users.changes.max-limit:1000}")
+    private int maxChangesLimit;
+
+    @Value("${app.users.changes.settle-ms:2000}")
+    private long changesSettleMillis;
+
+    private volatile String missingUserPasswordHash;
+
     @Transactional
     public UserDTOs.AuthResponse signup(UserDTOs.SignupRequest request) {
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (userStore.isEmailTaken(request.getEmail())) {
             throw new CustomExceptions.DuplicateResourceException("Email already exists");
         }
 
-        if (request.getUsername() != null && userRepository.existsByUsername(request.getUsername())) {
+        if (request.getUsername() != null && userStore.isUsernameTaken(request.getUsername())) {
             throw new CustomExceptions.DuplicateResourceException("Username already exists");
         }
 
@@ -57,48 +110,147 @@ public class UserService {
         user.setUsername(request.getUsername());
         user.setPhoneNumber(request.getPhoneNumber());
         user.setIsActive(true);
+        user.setRole(Role.USER);
 
-        User savedUser = userRepository.save(user);
+        User savedUser = userStore.insert(user);
+        UserDTOs.UserResponse userResponse = convertToUserResponse(savedUser);
+        outboxService.record(savedUser.getId(), UserEventType.CREATED, userResponse);
 
         CustomUserDetails userDetails = new CustomUserDetails(savedUser);
         String token = jwtUtil.generateToken(userDetails);
+        String refreshToken = refreshTokenService.issue(savedUser.getId());
 
-        return new UserDTOs.AuthResponse(token, convertToUserResponse(savedUser));
+        return new UserDTOs.AuthResponse(token, refreshToken, userResponse);
     }
 
-    public UserDTOs.AuthResponse login(UserDTOs.LoginRequest request) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-            );
+    public UserDTOs.AuthResponse login(UserDTOs.LoginRequest request, String clientIp) {
+        loginRateLimiter.checkAttempt(clientIp, request.getEmail());
 
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            String token = jwtUtil.generateToken(userDetails);
+        User user = userStore.findByEmail(request.getEmail()).orElse(null);
+        if (user == null) {
+            // Same bcrypt cost as a real check so unknown emails can't be told apart by timing.
+            passwordEncoder.matches(request.getPassword(), missingUserPasswordHash());
+            loginRateLimiter.recordFailure(request.getEmail());
+            throw CustomExceptions.InvalidCredentialsException.LOGIN_FAILED;
+        }
+        if (!passwordEncoder.matches(request.getPassword(), user.getPassword()) || !Boolean.TRUE.equals(user.getIsActive())) {
+            loginRateLimiter.recordFailure(request.getEmail());
+            throw CustomExceptions.InvalidCredentialsException.LOGIN_FAILED;
+        }
+        CustomUserDetails userDetails = new CustomUserDetails(user);
 
-            return new UserDTOs.AuthResponse(token, convertToUserResponse(userDetails.getUser()));
-        } catch (Exception e) {
-            throw new CustomExceptions.InvalidCredentialsException("Invalid email or password");
+        loginRateLimiter.recordSuccess(request.getEmail());
+        userActivityTracker.recordLogin(userDetails.getId());
+        String token = jwtUtil.generateToken(userDetails);
+        String refreshToken = refreshTokenService.issue(userDetails.getUser().getId());
+
+        return new UserDTOs.AuthResponse(token, refreshToken, convertToUserResponse(userDetails.getUser()));
+    }
+
+    public UserDTOs.AuthResponse refresh(UserDTOs.RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+
+        User user = userStore.findById(rotation.userId())
+                .filter(u -> Boolean.TRUE.equals(u.getIsActive()))
+                .orElseThrow(() -> new CustomExceptions.InvalidCredentialsException("Invalid refresh token"));
+
+        String token = jwtUtil.generateToken(new CustomUserDetails(user));
+        return new UserDTOs.AuthResponse(token, rotation.refreshToken(), convertToUserResponse(user));
+    }
+
+    public void logout(String refreshToken, String accessToken) {
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        if (accessToken != null) {
+            Claims claims;
+            try {
+                claims = jwtUtil.extractAllClaims(accessToken);
+            } catch (Exception e) {
+                // An invalid or expired access token needs no revocation.
+                return;
+            }
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration());
         }
     }
 
+    @Transactional(readOnly = true)
     public List<UserDTOs.UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
+        return userStore.findAll().stream()
                 .map(this::convertToUserResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public UserDTOs.UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: " + id));
+        User user = userStore.findById(id)
+                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id));
+        userVersionCache.put(user.getId(), user.getUpdatedAt());
         return convertToUserResponse(user);
     }
 
+    @Transactional(readOnly = true)
+    public AvatarCacheService.AvatarSource getAvatarSource(Long id) {
+        User user = userStore.findById(id)
+                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id));
+        if (user.getProfilePictureUrl() == null) {
+            throw new CustomExceptions.ResourceNotFoundException("User %s has no profile picture", id);
+        }
+        return new AvatarCacheService.AvatarSource(user.getProfilePictureFileId(), user.getProfilePictureUrl());
+    }
+
+    public LocalDateTime getCachedVersion(Long id) {
+        return userVersionCache.get(id);
+    }
+
+    @Transactional(readOnly = true)
+    public UserRepository.ListVersion getUserListVersion() {
+        return userStore.findListVersion();
+    }
+
+    /**
+     * Returns users updated and deleted after {@code since}, which is either an ISO timestamp or
+     * a cursor from a previous page. Rows younger than the settle window are held back so a
+     * transaction that commits late cannot slip behind a cursor that has already passed it.
+     */
+    @Transactional(readOnly = true)
+    public UserDTOs.UserChangesResponse getChanges(String since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxChangesLimit));
+        ChangeCursor cursor = ChangeCursor.parse(since);
+        LocalDateTime until = LocalDateTime.now().minusNanos(changesSettleMillis * 1_000_000L);
+
+        List<User> users = userStore.findChangedSince(cursor.userTime(), cursor.userId(), until, pageSize + 1);
+        List<UserTombstone> tombstones = userTombstoneRepository.findDeletedSince(cursor.tombstoneTime(),
+                cursor.tombstoneId(), until, PageRequest.ofSize(pageSize + 1));
+
+        boolean hasMore = users.size() > pageSize || tombstones.size() > pageSize;
+        users = users.subList(0, Math.min(users.size(), pageSize));
+        tombstones = tombstones.subList(0, Math.min(tombstones.size(), pageSize));
+
+        ChangeCursor next = cursor;
+        if (!users.isEmpty()) {
+            User last = users.get(users.size() - 1);
+            next = next.withUser(last.getUpdatedAt(), last.getId());
+        }
+        if (!tombstones.isEmpty()) {
+            UserTombstone last = tombstones.get(tombstones.size() - 1);
+            next = next.withTombstone(last.getDeletedAt(), last.getId());
+        }
+
+        return new UserDTOs.UserChangesResponse(
+                users.stream().map(this::convertToUserResponse).collect(Collectors.toList()),
+                tombstones.stream().map(UserTombstone::getUserId).collect(Collectors.toList()),
+                next.encode(),
+                hasMore
+        );
+    }
+
     @Transactional
     public UserDTOs.UserResponse updateUser(Long id, UserDTOs.UpdateUserRequest request) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: " + id));
+        validateUserAccess(id);
 
-        validateUserAccess(user);
+        User user = userStore.findById(id)
+                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id));
 
         if (request.getFirstName() != null) {
             user.setFirstName(request.getFirstName());
@@ -108,7 +260,7 @@ public class UserService {
         }
         if (request.getUsername() != null) {
             if (!request.getUsername().equals(user.getUsername()) &&
-                    userRepository.existsByUsername(request.getUsername())) {
+                    userStore.isUsernameTaken(request.getUsername())) {
                 throw new CustomExceptions.DuplicateResourceException("Username already exists");
             }
             user.setUsername(request.getUsername());
@@ -117,16 +269,23 @@ public class UserService {
             user.setPhoneNumber(request.getPhoneNumber());
         }
 
-        User updatedUser = userRepository.save(user);
-        return convertToUserResponse(updatedUser);
+        User updatedUser = userStore.update(user);
+        readYourWritesTracker.pin(updatedUser.getId());
+        userVersionCache.put(updatedUser.getId(), updatedUser.getUpdatedAt());
+        UserDTOs.UserResponse userResponse = convertToUserResponse(updatedUser);
+        outboxService.record(updatedUser.getId(), UserEventType.UPDATED, userResponse);
+        return userResponse;
     }
 
-    @Transactional
+    /**
+     * Not transactional as a whole: the remote upload runs without holding a database connection,
+     * and only the row update is wrapped in a short transaction.
+     */
     public UserDTOs.UserResponse uploadProfilePicture(Long id, MultipartFile file) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: " + id));
+        validateUserAccess(id);
 
-        validateUserAccess(user);
+        userStore.findById(id)
+                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id));
 
         if (file.isEmpty()) {
             throw new CustomExceptions.FileUploadException("File is empty");
@@ -137,50 +296,134 @@ public class UserService {
             throw new CustomExceptions.FileUploadException("Only image files are allowed");
         }
 
-        if (user.getProfilePictureFileId() != null) {
-            try {
-                imageKitService.deleteImage(user.getProfilePictureFileId());
-            } catch (Exception e) {
-                
-            }
-        }
-
-        Map<String, String> uploadResult = imageKitService.uploadImage(file, "user-profiles");
+        Map<String, String> uploadResult = imageKitService.uploadImage(file, ImageKitService.PROFILE_PICTURE_FOLDER);
+        String fileId = uploadResult.get("fileId");
 
-        user.setProfilePictureUrl(uploadResult.get("url"));
-        user.setProfilePictureFileId(uploadResult.get("fileId"));
+        PictureUpdate update;
+        try {
+            update = transactionTemplate.execute(status -> {
+                User user = userStore.findById(id)
+                        .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id));
+                String replacedFileId = user.getProfilePictureFileId();
+                user.setProfilePictureUrl(uploadResult.get("url"));
+                user.setProfilePictureFileId(fileId);
+
+                User updatedUser = userStore.update(user);
+                readYourWritesTracker.pin(updatedUser.getId());
+                userVersionCache.put(updatedUser.getId(), updatedUser.getUpdatedAt());
+                UserDTOs.UserResponse userResponse = convertToUserResponse(updatedUser);
+                outboxService.record(updatedUser.getId(), UserEventType.PROFILE_PICTURE_UPDATED, userResponse);
+                return new PictureUpdate(userResponse, replacedFileId);
+            });
+        } catch (RuntimeException e) {
+            deleteImageQuietly(fileId);
+            throw e;
+        }
 
-        User updatedUser = userRepository.save(user);
-        return convertToUserResponse(updatedUser);
+        avatarCacheService.store(fileId, file);
+        if (update.replacedFileId() != null && !update.replacedFileId().equals(fileId)) {
+            deleteImageQuietly(update.replacedFileId());
+        }
+        return update.response();
     }
 
     @Transactional
     public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: " + id));
+        validateUserAccess(id);
 
-        validateUserAccess(user);
+        User user = userStore.findById(id)
+                .orElseThrow(() -> new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id));
 
-        if (user.getProfilePictureFileId() != null) {
-            try {
-                imageKitService.deleteImage(user.getProfilePictureFileId());
-            } catch (Exception e) {
-                
-            }
-        }
+        userStore.softDelete(user);
+        outboxService.record(user.getId(), UserEventType.DELETED, null);
+        userVersionCache.invalidate(user.getId());
+
+        UserTombstone tombstone = new UserTombstone();
+        tombstone.setUserId(user.getId());
+        userTombstoneRepository.save(tombstone);
+
+        refreshTokenService.revokeAll(user.getId());
+        tokenRevocationList.revokeAllIssuedBefore(user.getId(), System.currentTimeMillis());
+    }
 
-        userRepository.delete(user);
+    private String missingUserPasswordHash() {
+        String hash = missingUserPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("missing-user-password");
+            missingUserPasswordHash = hash;
+        }
+        return hash;
     }
 
-    private void validateUserAccess(User user) {
+    private void validateUserAccess(Long userId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         CustomUserDetails currentUser = (CustomUserDetails) authentication.getPrincipal();
 
-        if (!currentUser.getUser().getId().equals(user.getId())) {
+        if (!currentUser.getId().equals(userId)) {
             throw new CustomExceptions.UnauthorizedException("You are not authorized to perform this action");
         }
     }
 
+    private void deleteImageQuietly(String fileId) {
+        try {
+            imageKitService.deleteImage(fileId);
+        } catch (Exception e) {
+            // Left for the orphaned picture sweep in UserPurgeService.
+        }
+    }
+
+    private record PictureUpdate(UserDTOs.UserResponse response, String replacedFileId) {
+    }
+
+    private record ChangeCursor(LocalDateTime userTime, long userId, LocalDateTime tombstoneTime, long tombstoneId) {
+
+        private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+        static ChangeCursor parse(String since) {
+            if (since == null || since.isBlank()) {
+                return new ChangeCursor(EPOCH, 0, EPOCH, 0);
+            }
+            LocalDateTime time = parseTimestamp(since);
+            if (time != null) {
+                return new ChangeCursor(time, 0, time, 0);
+            }
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(since), StandardCharsets.UTF_8);
+                String[] parts = decoded.split("\\|");
+                return new ChangeCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                        LocalDateTime.parse(parts[2]), Long.parseLong(parts[3]));
+            } catch (RuntimeException e) {
+                throw new CustomExceptions.BadRequestException("Invalid since parameter: %s", since);
+            }
+        }
+
+        private static LocalDateTime parseTimestamp(String value) {
+            try {
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException e) {
+                // Fall through to a zone-less timestamp.
+            }
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        ChangeCursor withUser(LocalDateTime time, long id) {
+            return new ChangeCursor(time, id, tombstoneTime, tombstoneId);
+        }
+
+        ChangeCursor withTombstone(LocalDateTime time, long id) {
+            return new ChangeCursor(userTime, userId, time, id);
+        }
+
+        String encode() {
+            String raw = userTime + "|" + userId + "|" + tombstoneTime + "|" + tombstoneId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     private UserDTOs.UserResponse convertToUserResponse(User user) {
         UserDTOs.UserResponse response = new UserDTOs.UserResponse();
         response.setId(user.getId());
@@ -0,0 +1,56 @@
+package com.example.usermanagement.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last known {@code updatedAt} per user, used to answer conditional GETs without loading the
+ * row. Entries expire after a short TTL because writes on other nodes are not seen here.
+ */
+@Component
+public class UserVersionCache {
+
+    private final ConcurrentHashMap<Long, Entry> versions = new ConcurrentHashMap<>();
+
+    @Value("${app.users.version-cache.ttl-ms:10000}")
+    private long ttlMillis;
+
+    @Value("${app.users.version-cache.max-entries:100000}")
+    private int maxEntries;
+
+    public LocalDateTime get(Long userId) {
+        Entry entry = versions.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            versions.remove(userId, entry);
+            return null;
+        }
+        return entry.updatedAt();
+    }
+
+    public void put(Long userId, LocalDateTime updatedAt) {
+        if (ttlMillis <= 0 || updatedAt == null) {
+            return;
+        }
+        if (versions.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            versions.values().removeIf(entry -> entry.expiresAt() < now);
+            if (versions.size() >= maxEntries) {
+                return;
+            }
+        }
+        versions.put(userId, new Entry(updatedAt, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void invalidate(Long userId) {
+        versions.remove(userId);
+    }
+
+    private record Entry(LocalDateTime updatedAt, long expiresAt) {
+    }
+}
@@ -0,0 +1,17 @@
+CREATE TABLE users (
+    id                      BIGINT       NOT NULL AUTO_INCREMENT,
+    email                   VARCHAR(255) NOT NULL,
+    password                VARCHAR(255) NOT NULL,
+    first_name              VARCHAR(255) NOT NULL,
+    last_name               VARCHAR(255) NOT NULL,
+    username                VARCHAR(255),
+    phone_number            VARCHAR(255),
+    profile_picture_url     VARCHAR(255),
+    profile_picture_file_id VARCHAR(255),
+    is_active               BIT          NOT NULL,
+    created_at              DATETIME(6)  NOT NULL,
+    updated_at              DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_username UNIQUE (username)
+) ENGINE = InnoDB;
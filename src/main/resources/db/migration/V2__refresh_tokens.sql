@@ -0,0 +1,12 @@
+CREATE TABLE refresh_tokens (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT      NOT NULL,
+    token_hash  VARCHAR(64) NOT NULL,
+    expires_at  DATETIME(6) NOT NULL,
+    revoked_at  DATETIME(6),
+    created_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens (user_id);
@@ -0,0 +1,10 @@
+CREATE INDEX idx_users_updated_at ON users (updated_at, id);
+
+CREATE TABLE user_tombstones (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT      NOT NULL,
+    deleted_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_user_tombstones_deleted_at ON user_tombstones (deleted_at, id);
@@ -0,0 +1,11 @@
+CREATE TABLE outbox_events (
+    id           BIGINT      NOT NULL AUTO_INCREMENT,
+    aggregate_id BIGINT      NOT NULL,
+    event_type   VARCHAR(40) NOT NULL,
+    payload      TEXT        NOT NULL,
+    created_at   DATETIME(6) NOT NULL,
+    published_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_outbox_events_published_at ON outbox_events (published_at, id);
@@ -0,0 +1,2 @@
+ALTER TABLE users ADD COLUMN last_login_at DATETIME(6);
+ALTER TABLE users ADD COLUMN last_seen_at DATETIME(6);
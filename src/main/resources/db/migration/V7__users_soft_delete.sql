@@ -0,0 +1,4 @@
+ALTER TABLE users ADD COLUMN deleted_at DATETIME(6);
+ALTER TABLE users ADD COLUMN purge_attempts INT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_users_deleted_at ON users (deleted_at, id);
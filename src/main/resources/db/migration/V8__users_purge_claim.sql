@@ -0,0 +1 @@
+ALTER TABLE users ADD COLUMN purge_claimed_until DATETIME(6);
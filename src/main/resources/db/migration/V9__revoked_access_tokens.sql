@@ -0,0 +1,9 @@
+CREATE TABLE revoked_access_tokens (
+    token_id   VARCHAR(64) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    revoked_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (token_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_revoked_access_tokens_revoked_at ON revoked_access_tokens (revoked_at);
+CREATE INDEX idx_revoked_access_tokens_expires_at ON revoked_access_tokens (expires_at);
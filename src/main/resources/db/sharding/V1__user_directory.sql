@@ -0,0 +1,8 @@
+CREATE TABLE user_directory (
+    email    VARCHAR(255) NOT NULL,
+    username VARCHAR(255),
+    user_id  BIGINT       NOT NULL,
+    PRIMARY KEY (email),
+    CONSTRAINT uk_user_directory_username UNIQUE (username),
+    CONSTRAINT uk_user_directory_user_id UNIQUE (user_id)
+) ENGINE = InnoDB;
@@ -0,0 +1 @@
+ALTER TABLE user_directory ADD COLUMN reserved_at DATETIME(6);
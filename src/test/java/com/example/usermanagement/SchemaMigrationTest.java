@@ -0,0 +1,42 @@
+package com.example.usermanagement;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigrationTest {
+
+    @Test
+    void upgradesDatabaseCreatedByDdlAutoUpdate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // The users table as ddl-auto=update created it before Flyway took over the schema
+        jdbc.execute("create table users (id bigint not null auto_increment, created_at datetime(6) not null, "
+                + "email varchar(255) not null, first_name varchar(255) not null, is_active bit not null, "
+                + "last_name varchar(255) not null, password varchar(255) not null, phone_number varchar(255), "
+                + "profile_picture_file_id varchar(255), profile_picture_url varchar(255), "
+                + "updated_at datetime(6) not null, username varchar(255), primary key (id), "
+                + "constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email), "
+                + "constraint UKr43af9ap4edm43mmtq01oddj6 unique (username))");
+        jdbc.update("insert into users (created_at, email, first_name, is_active, last_name, password, updated_at) "
+                + "values (current_timestamp, 'old@example.com', 'Old', true, 'User', 'hash', current_timestamp)");
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+        List<String> columns = jdbc.queryForList(
+                "select column_name from information_schema.columns where table_name = 'users'", String.class);
+        assertTrue(columns.containsAll(List.of("role", "deleted_at", "purge_attempts", "last_login_at", "last_seen_at")));
+        assertEquals("USER", jdbc.queryForObject("select role from users where email = 'old@example.com'", String.class));
+        for (String table : List.of("refresh_tokens", "user_tombstones", "outbox_events")) {
+            assertEquals(0, jdbc.queryForObject("select count(*) from " + table, Integer.class));
+        }
+    }
+}
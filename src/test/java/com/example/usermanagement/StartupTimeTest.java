@@ -0,0 +1,68 @@
+package com.example.usermanagement;
+
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.usermanagement.support.PerfTest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupTimeTest {
+
+    private static final int RUNS = 3;
+
+    @PerfTest
+    void prodProfileReachesFirstRequestSoonerThanDefault(TestReporter reporter) throws Exception {
+        // One untimed start of each so class loading and JIT warm-up are not charged to either profile
+        timeToFirstRequest("default", 0);
+        timeToFirstRequest("prod", 0);
+
+        long[] defaults = new long[RUNS];
+        long[] prods = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            defaults[i] = timeToFirstRequest("default", i + 1);
+            prods[i] = timeToFirstRequest("prod", i + 1);
+        }
+        long defaultMs = median(defaults);
+        long prodMs = median(prods);
+
+        reporter.publishEntry("default profile, time to first request (ms)", String.valueOf(defaultMs));
+        reporter.publishEntry("prod profile, time to first request (ms)", String.valueOf(prodMs));
+        assertTrue(prodMs < defaultMs, "prod " + prodMs + " ms vs default " + defaultMs + " ms");
+    }
+
+    private static long timeToFirstRequest(String profile, int run) throws Exception {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserManagementApplication.class)
+                .profiles(profile)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:startup-" + profile + "-" + run
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
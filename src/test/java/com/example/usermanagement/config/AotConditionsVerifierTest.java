@@ -0,0 +1,47 @@
+package com.example.usermanagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.example.usermanagement.event.FileUserEventSink;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AotConditionsVerifierTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withBean(AotConditionsVerifier.class);
+
+    @Test
+    void passesWhenNoToggleIsSet() {
+        runner.withPropertyValues("app.sharding.enabled=false")
+                .run(context -> assertNull(context.getStartupFailure()));
+    }
+
+    @Test
+    void failsWhenPropertyAsksForBeanTheBuildLeftOut() {
+        runner.withPropertyValues("app.sharding.enabled=true")
+                .run(context -> assertTrue(context.getStartupFailure().getMessage().contains("app.sharding.enabled")));
+    }
+
+    @Test
+    void failsWhenBuildIncludedBeanThePropertiesTurnOff() {
+        runner.withBean(ObjectMapper.class)
+                .withBean(PrebuiltFileSink.class)
+                .run(context -> assertTrue(context.getStartupFailure().getMessage().contains("app.outbox.file-sink.path")));
+    }
+
+    @Test
+    void acceptsMatchingPropertyAndBean() {
+        runner.withPropertyValues("app.outbox.file-sink.path=./events.ndjson")
+                .withBean(ObjectMapper.class)
+                .withBean(PrebuiltFileSink.class)
+                .run(context -> assertNull(context.getStartupFailure()));
+    }
+
+    /** Stands in for a bean whose condition was evaluated at build time (conditions are not inherited). */
+    static class PrebuiltFileSink extends FileUserEventSink {
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.usermanagement.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.support.PerfTest;
+import com.example.usermanagement.support.Timing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryContentConfigTest {
+
+    private static final int USERS = 10_000;
+    private static final int ITERATIONS = 20;
+
+    private final BinaryContentConfig config = new BinaryContentConfig();
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper cbor = config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+    private final ObjectMapper smile = config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+
+    @Test
+    void binaryFormatsRoundTripUserResponses() throws IOException {
+        List<UserDTOs.UserResponse> users = users(10);
+        TypeReference<List<UserDTOs.UserResponse>> type = new TypeReference<>() {};
+
+        assertEquals(users, cbor.readValue(cbor.writeValueAsBytes(users), type));
+        assertEquals(users, smile.readValue(smile.writeValueAsBytes(users), type));
+    }
+
+    @Test
+    void binaryFormatsAreSmallerThanJson() throws IOException {
+        List<UserDTOs.UserResponse> users = users(USERS);
+        int jsonBytes = json.writeValueAsBytes(users).length;
+
+        assertTrue(cbor.writeValueAsBytes(users).length < jsonBytes);
+        assertTrue(smile.writeValueAsBytes(users).length < jsonBytes);
+    }
+
+    @PerfTest
+    void serializesTenThousandUserList(TestReporter reporter) throws Exception {
+        List<UserDTOs.UserResponse> users = users(USERS);
+        for (Map.Entry<String, ObjectMapper> format : Map.of("json", json, "cbor", cbor, "smile", smile).entrySet()) {
+            ObjectMapper mapper = format.getValue();
+            double msPerOp = Timing.nanosPerOp(ITERATIONS, i -> mapper.writeValueAsBytes(users)) / 1_000_000;
+            byte[] payload = mapper.writeValueAsBytes(users);
+            reporter.publishEntry(format.getKey(), String.format("%.2f ms/op, %d bytes, %d bytes gzipped",
+                    msPerOp, payload.length, gzippedSize(payload)));
+        }
+    }
+
+    private static int gzippedSize(byte[] payload) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(payload);
+        }
+        return gzipped.size();
+    }
+
+    private static List<UserDTOs.UserResponse> users(int count) {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+        List<UserDTOs.UserResponse> users = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            users.add(new UserDTOs.UserResponse(id, "user" + id + "@example.com", "First" + id, "Last" + id,
+                    "user" + id, "+1555" + (1000000 + id), "https://ik.imagekit.io/demo/profile-pictures/" + id + ".jpg",
+                    id % 7 != 0, base.plusMinutes(id), base.plusMinutes(id).plusSeconds(30)));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import com.example.usermanagement.support.PerfTest;
+import com.example.usermanagement.support.Timing;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionHoldTrackerTest {
+
+    private static final int REMOTE_CALL_MS = 50;
+    private static final int CONCURRENT_REQUESTS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:holds-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(2);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255))");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void attributesHoldTimeToTheCurrentOperation() throws Exception {
+        ConnectionHoldTracker tracker = new ConnectionHoldTracker(meterRegistry, 1000, 30000);
+        DataSource dataSource = tracker.wrap(pool);
+
+        String previous = tracker.enter("UserService.uploadProfilePicture");
+        try (Connection connection = dataSource.getConnection()) {
+            tracker.enter("UserService.nested");
+            Thread.sleep(20);
+        } finally {
+            tracker.exit(previous);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        }
+
+        assertEquals(List.of("UserService.uploadProfilePicture", "other"), new ArrayList<>(tracker.longestHolds().keySet()));
+        assertTrue(tracker.longestHolds().get("UserService.uploadProfilePicture") >= 20);
+        assertEquals(1, meterRegistry.get("db.connection.hold").tag("operation", "other").timer().count());
+    }
+
+    @Test
+    void reportsConnectionsThatAreNotReturned() throws Exception {
+        ConnectionHoldTracker tracker = new ConnectionHoldTracker(meterRegistry, 1000, 10);
+        Connection leaked = tracker.wrap(pool).getConnection();
+        Thread.sleep(30);
+
+        assertEquals(1, tracker.reportLeaks());
+        assertEquals(0, tracker.reportLeaks());
+        leaked.close();
+    }
+
+    @PerfTest
+    void remoteCallOutsideTransactionCutsPoolWait(TestReporter reporter) throws Exception {
+        long inside = runRequests("remote call inside transaction", true, reporter);
+        long outside = runRequests("remote call outside transaction", false, reporter);
+
+        assertTrue(outside * 2 < inside, "outside " + outside + " ms vs inside " + inside + " ms");
+    }
+
+    @PerfTest
+    void batchedInsertsBeatRowByRowInserts(TestReporter reporter) throws Exception {
+        int rows = 5000;
+        insertRowByRow(200);
+        insertBatched(200);
+
+        long rowByRowMs = Timing.millis(() -> insertRowByRow(rows));
+        long batchedMs = Timing.millis(() -> insertBatched(rows));
+
+        reporter.publishEntry(rows + " inserts (ms)", "row-by-row " + rowByRowMs + ", batched " + batchedMs);
+        assertTrue(batchedMs < rowByRowMs, "batched " + batchedMs + " ms vs row-by-row " + rowByRowMs + " ms");
+    }
+
+    private long runRequests(String name, boolean remoteInsideTransaction, TestReporter reporter) throws Exception {
+        ConnectionHoldTracker tracker = new ConnectionHoldTracker(meterRegistry, 1000, 30000);
+        DataSource dataSource = tracker.wrap(pool);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                requests.add(executor.submit(() -> {
+                    String previous = tracker.enter(name);
+                    try {
+                        if (!remoteInsideTransaction) {
+                            Thread.sleep(REMOTE_CALL_MS);
+                        }
+                        try (Connection connection = dataSource.getConnection()) {
+                            connection.setAutoCommit(false);
+                            if (remoteInsideTransaction) {
+                                Thread.sleep(REMOTE_CALL_MS);
+                            }
+                            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO users (name) VALUES (?)")) {
+                                ps.setString(1, "avatar");
+                                ps.executeUpdate();
+                            }
+                            connection.commit();
+                        }
+                    } finally {
+                        tracker.exit(previous);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get();
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            reporter.publishEntry(name, String.format("%d ms for %d requests on %d connections, longest hold %d ms",
+                    elapsedMs, CONCURRENT_REQUESTS, pool.getMaximumPoolSize(), tracker.longestHolds().get(name)));
+            return elapsedMs;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insertRowByRow(int rows) throws Exception {
+        for (int i = 0; i < rows; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("INSERT INTO users (name) VALUES (?)")) {
+                ps.setString(1, "user" + i);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private void insertBatched(int rows) throws Exception {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement ps = connection.prepareStatement("INSERT INTO users (name) VALUES (?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < rows; i++) {
+                ps.setString(1, "user" + i);
+                ps.addBatch();
+                if ((i + 1) % 50 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            connection.commit();
+        }
+    }
+}
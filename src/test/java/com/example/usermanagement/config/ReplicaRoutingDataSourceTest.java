@@ -0,0 +1,70 @@
+package com.example.usermanagement.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replicaA = mock(DataSource.class);
+    private final DataSource replicaB = mock(DataSource.class);
+    private final AtomicBoolean pinned = new AtomicBoolean();
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        routing = new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), pinned::get);
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readWriteTransactionsUsePrimary() {
+        assertEquals(primary, routing.currentTarget());
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        DataSource first = routing.currentTarget();
+        DataSource second = routing.currentTarget();
+
+        assertEquals(Set.of(replicaA, replicaB), Set.of(first, second));
+    }
+
+    @Test
+    void unhealthyReplicasAreSkipped() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        routing.markHealthy(0, false);
+
+        assertEquals(replicaB, routing.currentTarget());
+        assertEquals(replicaB, routing.currentTarget());
+
+        routing.markHealthy(1, false);
+        assertEquals(primary, routing.currentTarget());
+    }
+
+    @Test
+    void pinnedUsersReadFromPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        pinned.set(true);
+
+        assertEquals(primary, routing.currentTarget());
+    }
+}
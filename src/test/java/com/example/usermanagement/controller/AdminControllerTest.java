@@ -0,0 +1,97 @@
+package com.example.usermanagement.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.example.usermanagement.exception.GlobalExceptionHandler;
+import com.example.usermanagement.service.UserExportService;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig(AdminControllerTest.Config.class)
+class AdminControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @MockitoBean
+    private UserExportService userExportService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void nonAdminIsForbidden() throws Exception {
+        authenticateAs("ROLE_USER");
+
+        mockMvc.perform(get("/api/admin/users/export"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.code").value("FORBIDDEN"));
+        verify(userExportService, never()).export(any(), any(), any());
+    }
+
+    @Test
+    void adminGetsTheExportAsAnAttachment() throws Exception {
+        authenticateAs("ROLE_ADMIN");
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(userExportService).export(any(), eq(UserExportService.Format.CSV), eq(UserExportService.Compression.NONE));
+
+        MvcResult result = mockMvc.perform(get("/api/admin/users/export")).andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\""))
+                .andExpect(content().string("id\n1\n"));
+    }
+
+    private static void authenticateAs(String authority) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "someone", null, List.of(new SimpleGrantedAuthority(authority))));
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @EnableMethodSecurity
+    @Import({AdminController.class, GlobalExceptionHandler.class})
+    static class Config {
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.usermanagement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.usermanagement.config.ReadYourWritesTracker;
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.GlobalExceptionHandler;
+import com.example.usermanagement.repository.JpaUserStore;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.CustomUserDetails;
+import com.example.usermanagement.security.JwtUtil;
+import com.example.usermanagement.security.LoginRateLimiter;
+import com.example.usermanagement.security.TokenRevocationList;
+import com.example.usermanagement.service.AvatarCacheService;
+import com.example.usermanagement.service.ImageKitService;
+import com.example.usermanagement.service.OutboxService;
+import com.example.usermanagement.service.RefreshTokenService;
+import com.example.usermanagement.service.UserActivityTracker;
+import com.example.usermanagement.service.UserService;
+import com.example.usermanagement.service.UserVersionCache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-controller;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.users.changes.settle-ms=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JacksonAutoConfiguration.class, UserController.class, UserService.class, JpaUserStore.class,
+        UserVersionCache.class, OutboxService.class})
+class UserControllerTest {
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private ImageKitService imageKitService;
+
+    @MockitoBean
+    private LoginRateLimiter loginRateLimiter;
+
+    @MockitoBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockitoBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockitoBean
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @MockitoBean
+    private UserActivityTracker userActivityTracker;
+
+    @MockitoBean
+    private AvatarCacheService avatarCacheService;
+
+    @TempDir
+    Path directory;
+
+    private Path avatarFile;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        avatarFile = directory.resolve("avatar.bin");
+        jdbcTemplate.update("DELETE FROM user_tombstones");
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        jdbcTemplate.update("DELETE FROM users");
+        mockMvc = MockMvcBuilders.standaloneSetup(userController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void changesPageThroughUsersAndTombstonesSharingATimestamp() throws Exception {
+        LocalDateTime changedAt = LocalDateTime.now().minusMinutes(1).withNano(0);
+        List<Long> expectedUpdated = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expectedUpdated.add(insertUser("same-" + i, changedAt));
+        }
+        for (long userId = 901; userId <= 903; userId++) {
+            jdbcTemplate.update("INSERT INTO user_tombstones (user_id, deleted_at) VALUES (?, ?)",
+                    userId, Timestamp.valueOf(changedAt));
+        }
+
+        List<Long> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        String cursor = changedAt.minusSeconds(1).toString();
+        UserDTOs.UserChangesResponse page;
+        do {
+            page = changes(cursor, 2);
+            page.getUpdated().forEach(user -> updated.add(user.getId()));
+            deleted.addAll(page.getDeleted());
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+
+        assertEquals(expectedUpdated, updated);
+        assertEquals(List.of(901L, 902L, 903L), deleted);
+
+        UserDTOs.UserChangesResponse last = changes(cursor, 2);
+        assertEquals(List.of(), last.getUpdated());
+        assertEquals(List.of(), last.getDeleted());
+        assertEquals(cursor, last.getNextCursor());
+        assertFalse(last.isHasMore());
+    }
+
+    @Test
+    void tamperedCursorIsABadRequest() throws Exception {
+        String cursor = changes(null, 10).getNextCursor();
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(decoded.replace("|", "|x").getBytes(StandardCharsets.UTF_8));
+        String truncated = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(decoded.substring(0, decoded.indexOf('|')).getBytes(StandardCharsets.UTF_8));
+
+        for (String since : List.of(tampered, truncated, "not*base64!", cursor + "%%")) {
+            mockMvc.perform(get("/api/users/changes").param("since", since))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void unchangedUserAnswersIfNoneMatchWithNotModified() throws Exception {
+        long userId = insertUser("etag", LocalDateTime.now().minusMinutes(1));
+
+        String eTag = mockMvc.perform(get("/api/users/{id}", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/users/{id}", userId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void eTagChangesAfterAnUpdate() throws Exception {
+        long userId = insertUser("update", LocalDateTime.now().minusMinutes(1));
+        User user = userRepository.findById(userId).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new CustomUserDetails(user), null, List.of()));
+
+        String before = mockMvc.perform(get("/api/users/{id}", userId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/users/{id}", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        String after = mockMvc.perform(get("/api/users/{id}", userId).header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void avatarRangeRequestsAreServedOrRejected() throws Exception {
+        long userId = insertUserWithAvatar("range", MediaType.IMAGE_PNG);
+
+        mockMvc.perform(get("/api/users/{id}/avatar", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(avatarBytes(0, 100)));
+
+        mockMvc.perform(get("/api/users/{id}/avatar", userId).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                .andExpect(content().bytes(avatarBytes(10, 10)));
+
+        mockMvc.perform(get("/api/users/{id}/avatar", userId).header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100"));
+
+        for (String unsatisfiable : List.of("bytes=100-", "bytes=150-200", "bytes=-0", "bytes=0-1,5-6", "pages=1-2")) {
+            mockMvc.perform(get("/api/users/{id}/avatar", userId).header(HttpHeaders.RANGE, unsatisfiable))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+        }
+    }
+
+    @Test
+    void avatarIfRangeAndIfNoneMatchUseTheFileId() throws Exception {
+        long userId = insertUserWithAvatar("if-range", MediaType.IMAGE_PNG);
+
+        mockMvc.perform(get("/api/users/{id}/avatar", userId)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"avatar-if-range\""))
+                .andExpect(status().isPartialContent());
+
+        mockMvc.perform(get("/api/users/{id}/avatar", userId)
+                        .header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"an-older-file\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(avatarBytes(0, 100)));
+
+        mockMvc.perform(get("/api/users/{id}/avatar", userId).header(HttpHeaders.IF_NONE_MATCH, "\"avatar-if-range\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void avatarIsHandedToSendfileWhenTheContainerSupportsIt() throws Exception {
+        long userId = insertUserWithAvatar("sendfile", MediaType.IMAGE_PNG);
+
+        MvcResult result = mockMvc.perform(get("/api/users/{id}/avatar", userId)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(new byte[0]))
+                .andReturn();
+
+        assertEquals(avatarFile.toAbsolutePath().toString(),
+                result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(10L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(20L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void avatarsAreNeverSniffedAndSvgIsOnlyDownloaded() throws Exception {
+        long pngUser = insertUserWithAvatar("png", MediaType.IMAGE_PNG);
+        mockMvc.perform(get("/api/users/{id}/avatar", pngUser))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string("Content-Security-Policy", "default-src 'none'; sandbox"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+
+        long svgUser = insertUserWithAvatar("svg", MediaType.parseMediaType("image/svg+xml"));
+        mockMvc.perform(get("/api/users/{id}/avatar", svgUser))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string("Content-Security-Policy", "default-src 'none'; sandbox"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment"));
+    }
+
+    private long insertUserWithAvatar(String name, MediaType mediaType) throws Exception {
+        long userId = insertUser(name, LocalDateTime.now().minusMinutes(1));
+        String fileId = "avatar-" + name;
+        String url = "https://cdn.example.com/" + fileId;
+        jdbcTemplate.update("UPDATE users SET profile_picture_file_id = ?, profile_picture_url = ? WHERE id = ?",
+                fileId, url, userId);
+        Files.write(avatarFile, avatarBytes(0, 100));
+        when(avatarCacheService.get(fileId, url))
+                .thenReturn(Optional.of(new AvatarCacheService.CachedAvatar(avatarFile, 100, mediaType, fileId)));
+        return userId;
+    }
+
+    private static byte[] avatarBytes(int from, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (from + i);
+        }
+        return bytes;
+    }
+
+    private UserDTOs.UserChangesResponse changes(String since, int limit) throws Exception {
+        var request = get("/api/users/changes").param("limit", String.valueOf(limit));
+        if (since != null) {
+            request.param("since", since);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, UserDTOs.UserChangesResponse.class);
+    }
+
+    private long insertUser(String name, LocalDateTime updatedAt) {
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, is_active, created_at, updated_at) " +
+                "VALUES (?, 'x', 'First', 'Last', 1, ?, ?)", name + "@example.com", timestamp, timestamp);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, name + "@example.com");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.usermanagement.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.UserEventType;
+import com.example.usermanagement.service.OutboxService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=2000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JacksonAutoConfiguration.class, OutboxService.class, OutboxRelay.class})
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private UserEventSink sink;
+
+    @BeforeEach
+    void clearOutbox() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+    }
+
+    @Test
+    void rowsAreNotLockedWhileSinksPublish() throws Exception {
+        record(1L);
+        doAnswer(invocation -> {
+            // Another node touching the batch must not wait for this publish to finish.
+            CompletableFuture.runAsync(() -> jdbcTemplate.update("UPDATE outbox_events SET aggregate_id = aggregate_id"))
+                    .get(5, TimeUnit.SECONDS);
+            return null;
+        }).when(sink).publish(anyList());
+
+        outboxRelay.relay();
+
+        assertEquals(0, unpublished());
+        assertEquals(0, claimed());
+    }
+
+    @Test
+    void batchClaimedByAnotherNodeIsLeftAlone() throws Exception {
+        record(1L);
+        jdbcTemplate.update("UPDATE outbox_events SET claimed_until = ?", Timestamp.valueOf(LocalDateTime.now().plusMinutes(1)));
+        record(2L);
+
+        outboxRelay.relay();
+
+        verify(sink, never()).publish(anyList());
+        assertEquals(2, unpublished());
+    }
+
+    @Test
+    void expiredClaimIsTakenOver() throws Exception {
+        record(1L);
+        jdbcTemplate.update("UPDATE outbox_events SET claimed_until = ?", Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+
+        outboxRelay.relay();
+
+        assertEquals(0, unpublished());
+    }
+
+    @Test
+    void rejectedBatchIsReleasedForTheNextRun() throws Exception {
+        record(1L);
+        doThrow(new IllegalStateException("sink down")).when(sink).publish(anyList());
+
+        assertThrows(IllegalStateException.class, outboxRelay::relay);
+
+        assertEquals(1, unpublished());
+        assertEquals(0, claimed());
+    }
+
+    private void record(long userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            UserDTOs.UserResponse user = new UserDTOs.UserResponse();
+            user.setId(userId);
+            outboxService.record(userId, UserEventType.UPDATED, user);
+        });
+    }
+
+    private int unpublished() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE published_at IS NULL", Integer.class);
+    }
+
+    private int claimed() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE claimed_until IS NOT NULL", Integer.class);
+    }
+}
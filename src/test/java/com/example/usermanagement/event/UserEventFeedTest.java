@@ -0,0 +1,119 @@
+package com.example.usermanagement.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.UserEventType;
+import com.example.usermanagement.repository.OutboxEventRepository;
+import com.example.usermanagement.service.OutboxService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-event-feed;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.outbox.batch-size=2",
+        "app.outbox.feed.settle-ms=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JacksonAutoConfiguration.class, OutboxService.class, OutboxRelay.class, UserEventFeed.class})
+class UserEventFeedTest {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private UserEventFeed userEventFeed;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void cursorResumesAcrossRelayBatches() throws Exception {
+        long start = lastId();
+        record(5);
+        outboxRelay.relay();
+        outboxRelay.relay();
+        outboxRelay.relay();
+
+        List<Long> seen = new ArrayList<>();
+        long cursor = start;
+        UserDTOs.UserEventsResponse page;
+        do {
+            page = userEventFeed.eventsAfter(cursor, 2);
+            page.getEvents().forEach(event -> seen.add(event.getUserId()));
+            cursor = page.getCursor();
+        } while (!page.getEvents().isEmpty());
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seen);
+        assertEquals(lastId(), cursor);
+    }
+
+    @Test
+    void unpublishedRowsAreServedWithoutThisNodeRelaying() {
+        long start = lastId();
+        record(3);
+
+        UserDTOs.UserEventsResponse page = userEventFeed.eventsAfter(start, 10);
+
+        assertEquals(3, page.getEvents().size());
+        assertEquals(lastId(), page.getCursor());
+    }
+
+    @Test
+    void waiterCompletesWhenTheRelayPublishes() throws Exception {
+        long start = lastId();
+        DeferredResult<UserDTOs.UserEventsResponse> result = userEventFeed.await(start, 10, 10000);
+        assertFalse(result.hasResult());
+
+        record(1);
+        outboxRelay.relay();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(result.hasResult());
+        assertEquals(1, ((UserDTOs.UserEventsResponse) result.getResult()).getEvents().size());
+    }
+
+    private void record(int count) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (long userId = 1; userId <= count; userId++) {
+                UserDTOs.UserResponse user = new UserDTOs.UserResponse();
+                user.setId(userId);
+                outboxService.record(userId, UserEventType.UPDATED, user);
+            }
+        });
+    }
+
+    private long lastId() {
+        Long maxId = outboxEventRepository.findMaxId();
+        return maxId != null ? maxId : 0;
+    }
+}
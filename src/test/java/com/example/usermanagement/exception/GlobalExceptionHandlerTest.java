@@ -0,0 +1,111 @@
+package com.example.usermanagement.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.support.PerfTest;
+import com.example.usermanagement.support.Timing;
+
+import java.time.LocalDateTime;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobalExceptionHandlerTest {
+
+    // Roughly the frames between a service method and the MVC handler adapter that catches.
+    private static final int STACK_DEPTH = 30;
+    private static final int ITERATIONS = 200_000;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void mapsErrorCodeToStatusAndBody() {
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response =
+                handler.handleApiException(new CustomExceptions.ResourceNotFoundException("User not found with id: %s", 42L));
+
+        assertEquals(404, response.getStatusCode().value());
+        assertEquals(CustomExceptions.ErrorCode.NOT_FOUND, response.getBody().getCode());
+        assertEquals("User not found with id: 42", response.getBody().getMessage());
+    }
+
+    @Test
+    void addsRetryAfterForRateLimitedRequests() {
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response =
+                handler.handleApiException(new CustomExceptions.TooManyRequestsException("Too many login attempts", 30));
+
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void expectedOutcomesCarryNoStackTrace() {
+        assertEquals(0, new CustomExceptions.ResourceNotFoundException("missing").getStackTrace().length);
+        assertEquals(0, CustomExceptions.InvalidCredentialsException.LOGIN_FAILED.getStackTrace().length);
+        assertNull(CustomExceptions.InvalidCredentialsException.LOGIN_FAILED.getCause());
+
+        RuntimeException cause = new RuntimeException("remote failure");
+        assertTrue(new CustomExceptions.FileUploadException("Failed to upload image", cause).getStackTrace().length > 0);
+    }
+
+    @PerfTest
+    void errorPathsCostAboutTheSameAsSuccessPath(TestReporter reporter) throws Exception {
+        UserDTOs.UserResponse user = new UserDTOs.UserResponse(42L, "user42@example.com", "First", "Last", "user42",
+                null, null, true, LocalDateTime.now(), LocalDateTime.now());
+
+        LongFunction<Object> success = id -> atDepth(STACK_DEPTH, () -> ResponseEntity.ok(user));
+        LongFunction<Object> notFound = id -> {
+            try {
+                return atDepth(STACK_DEPTH, () -> {
+                    throw new CustomExceptions.ResourceNotFoundException("User not found with id: %s", id);
+                });
+            } catch (CustomExceptions.ApiException e) {
+                return handler.handleApiException(e);
+            }
+        };
+        LongFunction<Object> unauthorized = id -> {
+            try {
+                return atDepth(STACK_DEPTH, () -> {
+                    throw CustomExceptions.InvalidCredentialsException.LOGIN_FAILED;
+                });
+            } catch (CustomExceptions.ApiException e) {
+                return handler.handleApiException(e);
+            }
+        };
+        LongFunction<Object> withStackTrace = id -> {
+            try {
+                return atDepth(STACK_DEPTH, () -> {
+                    throw new IllegalStateException("User not found with id: " + id);
+                });
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(404).body(new GlobalExceptionHandler.ErrorResponse(404, e.getMessage(), LocalDateTime.now()));
+            }
+        };
+
+        double successNs = Timing.nanosPerOp(ITERATIONS, i -> serialize(success.apply(i)));
+        double notFoundNs = Timing.nanosPerOp(ITERATIONS, i -> serialize(notFound.apply(i)));
+        double unauthorizedNs = Timing.nanosPerOp(ITERATIONS, i -> serialize(unauthorized.apply(i)));
+        double stackTraceNs = Timing.nanosPerOp(ITERATIONS, i -> serialize(withStackTrace.apply(i)));
+        reporter.publishEntry("ns/op", String.format("success %.0f, 404 %.0f, 401 %.0f, with stack trace %.0f",
+                successNs, notFoundNs, unauthorizedNs, stackTraceNs));
+
+        assertTrue(notFoundNs < successNs * 3, "404 path " + notFoundNs + " ns vs success " + successNs + " ns");
+        assertTrue(unauthorizedNs < successNs * 3, "401 path " + unauthorizedNs + " ns vs success " + successNs + " ns");
+    }
+
+    private void serialize(Object response) throws Exception {
+        objectMapper.writeValueAsBytes(((ResponseEntity<?>) response).getBody());
+    }
+
+    private static Object atDepth(int depth, java.util.function.Supplier<Object> body) {
+        return depth == 0 ? body.get() : atDepth(depth - 1, body);
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.usermanagement.repository.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.config.ShardingConfig;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.CustomExceptions;
+import com.example.usermanagement.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedUserRepositoryTest {
+
+    private final String run = UUID.randomUUID().toString();
+    private DataSource shard0;
+    private ShardRouter router;
+    private ShardMigrator migrator;
+    private ShardedUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        shard0 = database("shard0");
+        DataSource shard1 = database("shard1");
+        DataSource shard2 = database("shard2");
+        ShardingConfig.migrateDirectory(shard0);
+
+        router = new ShardRouter(Map.of(0, shard0, 1, shard1, 2, shard2), List.of(0, 1, 2));
+        UserDirectory directory = new UserDirectory(shard0);
+        migrator = new ShardMigrator(router, directory);
+        router.shardIds().forEach(migrator::initializeShard);
+        repository = new ShardedUserRepository(router, directory, 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void encodesShardInIdAndRoutesLookups() {
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            User user = repository.insert(user(i));
+            int shard = ShardRouter.shardOf(user.getId());
+            assertEquals(router.shardForNewUser(user.getEmail()), shard);
+            usedShards.add(shard);
+
+            assertEquals(user.getId(), repository.findByEmail(user.getEmail()).orElseThrow().getId());
+            assertEquals(user.getId(), repository.findByUsername(user.getUsername()).orElseThrow().getId());
+        }
+        assertEquals(Set.of(0, 1, 2), usedShards);
+        assertTrue(repository.isEmailTaken("user7@example.com"));
+        assertFalse(repository.isEmailTaken("nobody@example.com"));
+    }
+
+    @Test
+    void rejectsDuplicatesAcrossShards() {
+        repository.insert(user(1));
+
+        User sameEmail = user(2);
+        sameEmail.setEmail("user1@example.com");
+        assertThrows(CustomExceptions.DuplicateResourceException.class, () -> repository.insert(sameEmail));
+
+        User sameUsername = user(3);
+        sameUsername.setUsername("user1");
+        assertThrows(CustomExceptions.DuplicateResourceException.class, () -> repository.insert(sameUsername));
+    }
+
+    @Test
+    void failedInsertReleasesItsReservation() {
+        User tooLong = user(1);
+        tooLong.setFirstName("x".repeat(300));
+        assertThrows(DataAccessException.class, () -> repository.insert(tooLong));
+
+        assertFalse(repository.isEmailTaken("user1@example.com"));
+        assertFalse(repository.isUsernameTaken("user1"));
+        assertEquals("user1@example.com", repository.insert(user(1)).getEmail());
+    }
+
+    @Test
+    void failedUpdateMovesTheUsernameBack() {
+        User user = repository.insert(user(1));
+        user.setUsername("renamed");
+        user.setLastName("x".repeat(300));
+
+        assertThrows(DataAccessException.class, () -> repository.update(user));
+
+        assertEquals(user.getId(), repository.findByUsername("user1").orElseThrow().getId());
+        assertTrue(repository.findByUsername("renamed").isEmpty());
+    }
+
+    @Test
+    void scatterRunsOnTheCallerWhenThePoolIsBusyAndFailsOnceClosed() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            repository.insert(user(i));
+        }
+        ShardedUserRepository tight = new ShardedUserRepository(router, new UserDirectory(shard0), 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                counts.add(callers.submit(() -> tight.findAll().size()));
+            }
+            for (Future<Integer> count : counts) {
+                assertEquals(12, count.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+            tight.close();
+        }
+        assertThrows(RejectedExecutionException.class, tight::findAll);
+    }
+
+    @Test
+    void rolledBackTransactionUndoesWritesToOtherShards() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(shard0));
+        User kept = insertOffShard0(1);
+        int offShard0 = 2;
+
+        User rolledBack = user(offShard0);
+        while (router.shardForNewUser(rolledBack.getEmail()) == 0) {
+            rolledBack = user(++offShard0);
+        }
+        User signup = rolledBack;
+        transaction.executeWithoutResult(status -> {
+            repository.insert(signup);
+            status.setRollbackOnly();
+        });
+        assertTrue(repository.findById(signup.getId()).isEmpty());
+        assertFalse(repository.isEmailTaken(signup.getEmail()));
+        signup.setId(null);
+        assertEquals(signup.getEmail(), repository.insert(signup).getEmail());
+
+        transaction.executeWithoutResult(status -> {
+            User edit = repository.findById(kept.getId()).orElseThrow();
+            edit.setFirstName("Changed");
+            edit.setUsername("changed");
+            repository.update(edit);
+            status.setRollbackOnly();
+        });
+        User afterUpdate = repository.findById(kept.getId()).orElseThrow();
+        assertEquals(kept.getFirstName(), afterUpdate.getFirstName());
+        assertEquals(kept.getUsername(), afterUpdate.getUsername());
+        assertEquals(kept.getId(), repository.findByUsername(kept.getUsername()).orElseThrow().getId());
+        assertTrue(repository.findByUsername("changed").isEmpty());
+
+        transaction.executeWithoutResult(status -> {
+            repository.softDelete(repository.findById(kept.getId()).orElseThrow());
+            status.setRollbackOnly();
+        });
+        assertTrue(repository.findById(kept.getId()).orElseThrow().getIsActive());
+    }
+
+    @Test
+    void purgedEmailCanBeRegisteredAgain() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(shard0));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            users.add(repository.insert(user(i)));
+        }
+        assertEquals(Set.of(0, 1, 2), new HashSet<>(users.stream().map(user -> ShardRouter.shardOf(user.getId())).toList()));
+        users.forEach(repository::softDelete);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<UserRepository.PurgeCandidate> candidates = repository.findPurgeCandidates(now.plusSeconds(1), now, 10);
+        assertEquals(users.stream().map(User::getId).collect(Collectors.toSet()),
+                candidates.stream().map(UserRepository.PurgeCandidate::getId).collect(Collectors.toSet()));
+        for (UserRepository.PurgeCandidate candidate : candidates) {
+            assertEquals(1, repository.claimForPurge(candidate.getId(), now, now.plusMinutes(5)));
+            assertEquals(0, repository.claimForPurge(candidate.getId(), now, now.plusMinutes(5)));
+            assertEquals(1, (int) transaction.execute(status -> repository.hardDeleteSoftDeleted(candidate.getId())));
+        }
+
+        for (User purged : users) {
+            assertFalse(repository.isEmailTaken(purged.getEmail()));
+            assertFalse(repository.isUsernameTaken(purged.getUsername()));
+            User again = user(users.indexOf(purged));
+            assertEquals(purged.getEmail(), repository.findById(repository.insert(again).getId()).orElseThrow().getEmail());
+        }
+    }
+
+    @Test
+    void rolledBackPurgeKeepsTheUserAndItsDirectoryEntry() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(shard0));
+        User user = insertOffShard0(0);
+        repository.softDelete(user);
+
+        transaction.executeWithoutResult(status -> {
+            repository.hardDeleteSoftDeleted(user.getId());
+            status.setRollbackOnly();
+        });
+
+        assertTrue(repository.isEmailTaken(user.getEmail()));
+        assertEquals(1, repository.findPurgeCandidates(LocalDateTime.now().plusSeconds(1), LocalDateTime.now(), 10).size());
+    }
+
+    @Test
+    void reconcileRegistersUnknownUsersAndDropsStaleReservations() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        JdbcTemplate primary = new JdbcTemplate(shard0);
+        primary.update("INSERT INTO users (email, password, first_name, last_name, username, is_active, role, " +
+                "created_at, updated_at) VALUES ('legacy@example.com', 'hash', 'Legacy', 'User', 'legacy', TRUE, 'USER', ?, ?)",
+                now, now);
+        primary.update("INSERT INTO user_directory (email, username, user_id, reserved_at) VALUES ('stuck@example.com', NULL, -1, ?)",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+        assertTrue(repository.findByEmail("legacy@example.com").isEmpty());
+        assertTrue(repository.isEmailTaken("stuck@example.com"));
+
+        migrator.reconcileDirectory(10);
+
+        assertEquals("legacy", repository.findByEmail("legacy@example.com").orElseThrow().getUsername());
+        assertFalse(repository.isEmailTaken("stuck@example.com"));
+    }
+
+    @Test
+    void listsAndVersionsAcrossShards() {
+        for (int i = 0; i < 12; i++) {
+            repository.insert(user(i));
+        }
+
+        List<User> all = repository.findAll();
+        assertEquals(12, all.size());
+        assertEquals(all.stream().map(User::getId).sorted().toList(), all.stream().map(User::getId).toList());
+        assertEquals(12, repository.findListVersion().getCount());
+
+        List<User> changed = repository.findChangedSince(LocalDateTime.of(1970, 1, 1, 0, 0), 0L,
+                LocalDateTime.now().plusMinutes(1), 5);
+        assertEquals(5, changed.size());
+        for (int i = 1; i < changed.size(); i++) {
+            User previous = changed.get(i - 1);
+            User current = changed.get(i);
+            assertTrue(previous.getUpdatedAt().isBefore(current.getUpdatedAt())
+                    || previous.getUpdatedAt().equals(current.getUpdatedAt()) && previous.getId() < current.getId());
+        }
+    }
+
+    @Test
+    void pagesAcrossShardsInIdOrder() {
+        List<Long> inserted = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            inserted.add(repository.insert(user(i)).getId());
+        }
+        repository.softDelete(repository.findById(inserted.get(3)).orElseThrow());
+        inserted.remove(3);
+        inserted.sort(Long::compare);
+
+        List<Long> paged = new ArrayList<>();
+        Long after = null;
+        do {
+            ShardedUserRepository.KeysetPage page = repository.findPage(after, 7);
+            page.users().forEach(user -> paged.add(user.getId()));
+            after = page.nextAfterId();
+        } while (after != null);
+
+        assertEquals(inserted, paged);
+        assertEquals(1, repository.search("user12@", null, 10).users().size());
+    }
+
+    @Test
+    void movesShardToNewDatabaseKeepingIds() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(repository.insert(user(i)));
+        }
+        long onShard2 = users.stream().filter(user -> ShardRouter.shardOf(user.getId()) == 2).count();
+
+        DataSource target = database("shard2-new");
+        assertEquals(onShard2, migrator.moveShard(2, target, 3));
+        assertEquals(target, router.dataSource(2));
+
+        for (User user : users) {
+            assertEquals(user.getEmail(), repository.findById(user.getId()).orElseThrow().getEmail());
+        }
+        User next = null;
+        for (int i = 100; next == null || ShardRouter.shardOf(next.getId()) != 2; i++) {
+            next = repository.insert(user(i));
+        }
+        assertTrue(next.getId() > users.stream().mapToLong(User::getId).max().orElseThrow());
+        assertNull(repository.findPage(next.getId(), 10).nextAfterId());
+    }
+
+    private User insertOffShard0(int from) {
+        for (int i = from; ; i++) {
+            User user = user(i);
+            if (router.shardForNewUser(user.getEmail()) != 0) {
+                return repository.insert(user);
+            }
+        }
+    }
+
+    private DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + run + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        ShardingConfig.migrateShard(dataSource);
+        return dataSource;
+    }
+
+    private static User user(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@example.com");
+        user.setPassword("hash");
+        user.setFirstName("First" + i);
+        user.setLastName("Last" + i);
+        user.setUsername("user" + i);
+        return user;
+    }
+}
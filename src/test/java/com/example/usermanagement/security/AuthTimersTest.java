@@ -0,0 +1,202 @@
+package com.example.usermanagement.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.usermanagement.config.ReadYourWritesTracker;
+import com.example.usermanagement.dto.UserDTOs;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.CustomExceptions;
+import com.example.usermanagement.repository.UserStore;
+import com.example.usermanagement.repository.UserTombstoneRepository;
+import com.example.usermanagement.service.AvatarCacheService;
+import com.example.usermanagement.service.ImageKitService;
+import com.example.usermanagement.service.OutboxService;
+import com.example.usermanagement.service.RefreshTokenService;
+import com.example.usermanagement.service.UserActivityTracker;
+import com.example.usermanagement.service.UserService;
+import com.example.usermanagement.service.UserVersionCache;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wires the timed beans the way the application does, against a {@link SimpleMeterRegistry},
+ * and checks the meters a dashboard depends on: names, tags, one meter per stage, and that
+ * failures are recorded as well as successes.
+ */
+@SpringJUnitConfig(AuthTimersTest.Config.class)
+class AuthTimersTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private UserStore userStore;
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private CustomUserDetailsService userDetailsService;
+
+    @MockitoBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockitoBean
+    private ImageKitService imageKitService;
+
+    @MockitoBean
+    private LoginRateLimiter loginRateLimiter;
+
+    @MockitoBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockitoBean
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @MockitoBean
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @MockitoBean
+    private UserVersionCache userVersionCache;
+
+    @MockitoBean
+    private OutboxService outboxService;
+
+    @MockitoBean
+    private UserActivityTracker userActivityTracker;
+
+    @MockitoBean
+    private AvatarCacheService avatarCacheService;
+
+    @MockitoBean
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void loginAndRefreshAreTimedOnSuccessAndFailure() {
+        User user = user(7L, passwordEncoder.encode("secret"));
+        when(userStore.findByEmail("ann@example.com")).thenReturn(Optional.of(user));
+        when(userStore.findById(7L)).thenReturn(Optional.of(user));
+        when(jwtUtil.generateToken(any())).thenReturn("access");
+        when(refreshTokenService.issue(anyLong())).thenReturn("refresh");
+        when(refreshTokenService.rotate("good")).thenReturn(new RefreshTokenService.Rotation(7L, "refresh-2"));
+        when(refreshTokenService.rotate("bad"))
+                .thenThrow(new CustomExceptions.InvalidCredentialsException("Invalid refresh token"));
+
+        userService.login(login("secret"), "10.0.0.1");
+        assertThrows(CustomExceptions.InvalidCredentialsException.class, () -> userService.login(login("wrong"), "10.0.0.1"));
+        userService.refresh(new UserDTOs.RefreshRequest("good"));
+        assertThrows(CustomExceptions.InvalidCredentialsException.class,
+                () -> userService.refresh(new UserDTOs.RefreshRequest("bad")));
+
+        for (String method : new String[] {"login", "refresh"}) {
+            assertEquals(1, serviceTimer(method, "none").count(), method);
+            assertEquals(1, serviceTimer(method, "InvalidCredentialsException").count(), method);
+        }
+        assertEquals(1, meterRegistry.get("password.encoder").tag("operation", "encode").timers().size());
+        assertEquals(2, meterRegistry.get("password.encoder").tag("operation", "match").timer().count());
+    }
+
+    @Test
+    void jwtStagesHaveOneTimerEachAndRecordFailedTokens() throws Exception {
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn("ann@example.com");
+        when(jwtUtil.extractAllClaims("good")).thenReturn(claims);
+        when(jwtUtil.extractAllClaims("bad")).thenThrow(new IllegalArgumentException("malformed"));
+        when(userDetailsService.loadUserByUsername(eq("ann@example.com")))
+                .thenReturn(new CustomUserDetails(user(7L, "hash")));
+
+        for (String token : new String[] {"good", "bad", "good"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/7");
+            request.addHeader("Authorization", "Bearer " + token);
+            jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            SecurityContextHolder.clearContext();
+        }
+
+        assertEquals(2, meterRegistry.get("jwt.filter").timers().size());
+        assertEquals(3, meterRegistry.get("jwt.filter").tag("stage", "parse_verify").timer().count());
+        assertEquals(2, meterRegistry.get("jwt.filter").tag("stage", "user_load").timer().count());
+    }
+
+    private Timer serviceTimer(String method, String exception) {
+        return meterRegistry.get("user.service")
+                .tags("class", UserService.class.getName(), "method", method, "exception", exception)
+                .timer();
+    }
+
+    private static UserDTOs.LoginRequest login(String password) {
+        UserDTOs.LoginRequest request = new UserDTOs.LoginRequest();
+        request.setEmail("ann@example.com");
+        request.setPassword(password);
+        return request;
+    }
+
+    private static User user(Long id, String passwordHash) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("ann@example.com");
+        user.setPassword(passwordHash);
+        user.setFirstName("Ann");
+        user.setLastName("Lee");
+        user.setIsActive(true);
+        user.setRole(Role.USER);
+        return user;
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    @Import({UserService.class, JwtAuthenticationFilter.class})
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TimedAspect timedAspect(MeterRegistry meterRegistry) {
+            return new TimedAspect(meterRegistry);
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+            return new TimedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.usermanagement.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.usermanagement.exception.CustomExceptions;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private InMemoryLoginAttemptStore store;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryLoginAttemptStore(1000);
+        limiter = new LoginRateLimiter(store, now::get);
+        ReflectionTestUtils.setField(limiter, "windowMillis", 60_000L);
+        ReflectionTestUtils.setField(limiter, "maxAttemptsPerIp", 10);
+        ReflectionTestUtils.setField(limiter, "maxFailuresPerAccount", 3);
+        ReflectionTestUtils.setField(limiter, "baseLockoutMillis", 30_000L);
+        ReflectionTestUtils.setField(limiter, "maxLockoutMillis", 120_000L);
+        ReflectionTestUtils.setField(limiter, "idleEvictionMillis", 600_000L);
+        ReflectionTestUtils.setField(limiter, "allowList", Set.of("10.0.0.1"));
+    }
+
+    @Test
+    void locksAccountAfterRepeatedFailures() {
+        for (int i = 0; i < 3; i++) {
+            limiter.checkAttempt("1.1.1.1", "user@example.com");
+            limiter.recordFailure("user@example.com");
+        }
+
+        CustomExceptions.TooManyRequestsException ex = assertThrows(CustomExceptions.TooManyRequestsException.class,
+                () -> limiter.checkAttempt("2.2.2.2", "USER@example.com"));
+        assertEquals(30, ex.getRetryAfterSeconds());
+
+        now.addAndGet(30_001L);
+        assertDoesNotThrow(() -> limiter.checkAttempt("2.2.2.2", "user@example.com"));
+    }
+
+    @Test
+    void escalatesLockoutOnRepeatedViolations() {
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("user@example.com");
+        }
+        now.addAndGet(30_001L);
+        limiter.recordFailure("user@example.com");
+
+        CustomExceptions.TooManyRequestsException ex = assertThrows(CustomExceptions.TooManyRequestsException.class,
+                () -> limiter.checkAttempt("1.1.1.1", "user@example.com"));
+        assertEquals(60, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    void successResetsAccountFailures() {
+        limiter.recordFailure("user@example.com");
+        limiter.recordFailure("user@example.com");
+        limiter.recordSuccess("user@example.com");
+        limiter.recordFailure("user@example.com");
+
+        assertDoesNotThrow(() -> limiter.checkAttempt("1.1.1.1", "user@example.com"));
+    }
+
+    @Test
+    void limitsAttemptsPerIpAcrossAccounts() {
+        for (int i = 0; i < 10; i++) {
+            limiter.checkAttempt("1.1.1.1", "user" + i + "@example.com");
+        }
+
+        assertThrows(CustomExceptions.TooManyRequestsException.class,
+                () -> limiter.checkAttempt("1.1.1.1", "other@example.com"));
+        assertDoesNotThrow(() -> limiter.checkAttempt("3.3.3.3", "other@example.com"));
+    }
+
+    @Test
+    void allowListedIpIsNotLimited() {
+        for (int i = 0; i < 50; i++) {
+            limiter.checkAttempt("10.0.0.1", "user" + i + "@example.com");
+        }
+    }
+
+    @Test
+    void evictsIdleKeys() {
+        limiter.checkAttempt("1.1.1.1", "user@example.com");
+        limiter.recordFailure("user@example.com");
+        assertEquals(2, store.size());
+
+        now.addAndGet(600_001L);
+        limiter.evictIdle();
+
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void floodOfNewKeysKeepsTrackingAndLockouts() {
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("victim@example.com");
+        }
+        for (int i = 0; i < 5000; i++) {
+            now.incrementAndGet();
+            limiter.recordFailure("random" + i + "@example.com");
+        }
+
+        assertTrue(store.size() <= 1000);
+        assertThrows(CustomExceptions.TooManyRequestsException.class,
+                () -> limiter.checkAttempt("1.1.1.1", "victim@example.com"));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("late@example.com");
+        }
+        assertThrows(CustomExceptions.TooManyRequestsException.class,
+                () -> limiter.checkAttempt("1.1.1.1", "late@example.com"));
+    }
+}
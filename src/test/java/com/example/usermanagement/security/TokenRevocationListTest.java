@@ -0,0 +1,72 @@
+package com.example.usermanagement.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.usermanagement.entity.RevokedAccessToken;
+import com.example.usermanagement.entity.UserTombstone;
+import com.example.usermanagement.repository.RevokedAccessTokenRepository;
+import com.example.usermanagement.repository.UserTombstoneRepository;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+    private final UserTombstoneRepository tombstones = mock(UserTombstoneRepository.class);
+    private final RevokedAccessTokenRepository revokedTokens = mock(RevokedAccessTokenRepository.class);
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocationList, "userTombstoneRepository", tombstones);
+        ReflectionTestUtils.setField(revocationList, "revokedAccessTokenRepository", revokedTokens);
+        ReflectionTestUtils.setField(revocationList, "expiration", 900_000L);
+    }
+
+    @Test
+    void revokesTokensOfUsersDeletedOnAnotherNode() {
+        Date issuedBeforeDeletion = new Date(System.currentTimeMillis() - 60_000);
+        assertFalse(revocationList.isRevoked(7L, "jti-1", issuedBeforeDeletion));
+
+        when(tombstones.findByDeletedAtAfter(any())).thenReturn(List.of(new UserTombstone(1L, 7L, LocalDateTime.now())));
+        revocationList.syncDeletedUsers();
+
+        assertTrue(revocationList.isRevoked(7L, "jti-1", issuedBeforeDeletion));
+        assertFalse(revocationList.isRevoked(8L, "jti-2", issuedBeforeDeletion));
+    }
+
+    @Test
+    void deniesIndividualTokenIdsAndSharesThem() {
+        revocationList.revoke("jti-1", new Date(System.currentTimeMillis() + 60_000));
+
+        assertTrue(revocationList.isRevoked(7L, "jti-1", new Date()));
+        assertFalse(revocationList.isRevoked(7L, "jti-2", new Date()));
+        ArgumentCaptor<RevokedAccessToken> saved = ArgumentCaptor.forClass(RevokedAccessToken.class);
+        verify(revokedTokens).save(saved.capture());
+        assertEquals("jti-1", saved.getValue().getTokenId());
+    }
+
+    @Test
+    void deniesTokensLoggedOutOnAnotherNode() {
+        assertFalse(revocationList.isRevoked(7L, "jti-remote", new Date()));
+
+        when(revokedTokens.findByRevokedAtAfter(any())).thenReturn(List.of(
+                new RevokedAccessToken("jti-remote", LocalDateTime.now().plusMinutes(10), LocalDateTime.now())));
+        revocationList.syncRevokedTokens();
+
+        assertTrue(revocationList.isRevoked(7L, "jti-remote", new Date()));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.usermanagement.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvatarCacheServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger originRequests = new AtomicInteger();
+    private HttpServer origin;
+    private AvatarCacheService cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        origin = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        origin.createContext("/img/", exchange -> {
+            originRequests.incrementAndGet();
+            byte[] body = new byte[400];
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().endsWith("missing") ? 404 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        origin.start();
+        cache = newCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        origin.stop(0);
+    }
+
+    @Test
+    void servesUploadedBytesWithoutContactingOrigin() throws Exception {
+        byte[] bytes = {1, 2, 3, 4};
+        cache.store("file-1", new MockMultipartFile("file", "a.jpg", "image/jpeg", bytes));
+
+        AvatarCacheService.CachedAvatar avatar = cache.get("file-1", originUrl("file-1")).orElseThrow();
+
+        assertArrayEquals(bytes, Files.readAllBytes(avatar.path()));
+        assertEquals(MediaType.IMAGE_JPEG, avatar.mediaType());
+        assertEquals(0, originRequests.get());
+    }
+
+    @Test
+    void fetchesFromOriginOnceOnMiss() {
+        assertTrue(cache.get("file-2", originUrl("file-2")).isPresent());
+        assertTrue(cache.get("file-2", originUrl("file-2")).isPresent());
+
+        assertEquals(1, originRequests.get());
+        assertFalse(cache.get("missing", originUrl("missing")).isPresent());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedToStayWithinBudget() {
+        cache.store("a", new MockMultipartFile("file", "a.png", "image/png", new byte[400]));
+        cache.store("b", new MockMultipartFile("file", "b.png", "image/png", new byte[400]));
+        cache.get("a", null);
+        cache.store("c", new MockMultipartFile("file", "c.png", "image/png", new byte[400]));
+
+        assertTrue(cache.totalBytes() <= 1000);
+        assertTrue(cache.get("a", null).isPresent());
+        assertFalse(cache.get("b", null).isPresent());
+        assertTrue(cache.get("c", null).isPresent());
+    }
+
+    @Test
+    void evictedFileOutlivesItsEntryUntilTheDeleteDelayPasses() {
+        Path evicted = storeAndEvict("a");
+
+        cache.deleteEvicted();
+
+        assertTrue(Files.exists(evicted));
+    }
+
+    @Test
+    void evictedFileIsDeletedOnceTheDelayHasPassed() {
+        ReflectionTestUtils.setField(cache, "deleteDelayMillis", 0L);
+        Path evicted = storeAndEvict("a");
+
+        cache.deleteEvicted();
+
+        assertFalse(Files.exists(evicted));
+    }
+
+    @Test
+    void fileCachedAgainIsNotDeletedByItsEarlierEviction() {
+        ReflectionTestUtils.setField(cache, "deleteDelayMillis", 0L);
+        Path path = storeAndEvict("a");
+
+        cache.store("a", new MockMultipartFile("file", "a.png", "image/png", new byte[400]));
+        cache.deleteEvicted();
+
+        assertTrue(Files.exists(path));
+        assertEquals(path, cache.get("a", null).orElseThrow().path());
+    }
+
+    @Test
+    void rebuildsIndexFromDiskOnStartup() throws Exception {
+        cache.store("kept", new MockMultipartFile("file", "k.png", "image/png", new byte[10]));
+
+        AvatarCacheService restarted = newCache();
+
+        AvatarCacheService.CachedAvatar avatar = restarted.get("kept", null).orElseThrow();
+        assertEquals(10, avatar.size());
+        assertEquals(MediaType.IMAGE_PNG, avatar.mediaType());
+    }
+
+    private Path storeAndEvict(String fileId) {
+        cache.store(fileId, new MockMultipartFile("file", "x.png", "image/png", new byte[400]));
+        Path path = cache.get(fileId, null).orElseThrow().path();
+        cache.store(fileId + "-b", new MockMultipartFile("file", "b.png", "image/png", new byte[400]));
+        cache.store(fileId + "-c", new MockMultipartFile("file", "c.png", "image/png", new byte[400]));
+        assertFalse(cache.get(fileId, null).isPresent());
+        return path;
+    }
+
+    private AvatarCacheService newCache() throws Exception {
+        AvatarCacheService service = new AvatarCacheService();
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "maxBytes", 1000L);
+        ReflectionTestUtils.setField(service, "maxFileBytes", 1000L);
+        ReflectionTestUtils.setField(service, "fetchTimeoutMillis", 2000L);
+        ReflectionTestUtils.setField(service, "deleteDelayMillis", 60_000L);
+        service.loadIndex();
+        return service;
+    }
+
+    private String originUrl(String name) {
+        return "http://localhost:" + origin.getAddress().getPort() + "/img/" + name;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.usermanagement.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.usermanagement.exception.CustomExceptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:refresh-tokens;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RefreshTokenService.class)
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    void rotationReplacesTheTokenAndKeepsTheUser() {
+        String original = refreshTokenService.issue(1L);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(original);
+
+        assertEquals(1L, rotation.userId());
+        assertNotEquals(original, rotation.refreshToken());
+        assertEquals(1L, refreshTokenService.rotate(rotation.refreshToken()).userId());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        String original = refreshTokenService.issue(2L);
+        String rotated = refreshTokenService.rotate(original).refreshToken();
+        String otherDevice = refreshTokenService.issue(2L);
+
+        CustomExceptions.InvalidCredentialsException reuse = assertThrows(CustomExceptions.InvalidCredentialsException.class,
+                () -> refreshTokenService.rotate(original));
+        assertEquals("Refresh token reuse detected", reuse.getMessage());
+
+        // The revocation must have committed even though rotate threw.
+        assertThrows(CustomExceptions.InvalidCredentialsException.class, () -> refreshTokenService.rotate(rotated));
+        assertThrows(CustomExceptions.InvalidCredentialsException.class, () -> refreshTokenService.rotate(otherDevice));
+    }
+
+    @Test
+    void revokedTokensOfOtherUsersAreUntouched() {
+        String victim = refreshTokenService.issue(3L);
+        String bystander = refreshTokenService.issue(4L);
+        refreshTokenService.rotate(victim);
+
+        assertThrows(CustomExceptions.InvalidCredentialsException.class, () -> refreshTokenService.rotate(victim));
+
+        assertEquals(4L, refreshTokenService.rotate(bystander).userId());
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        assertThrows(CustomExceptions.InvalidCredentialsException.class, () -> refreshTokenService.rotate("not-a-token"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.usermanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.usermanagement.config.ShardingConfig;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.repository.sharding.ShardMigrator;
+import com.example.usermanagement.repository.sharding.ShardRouter;
+import com.example.usermanagement.repository.sharding.ShardedUserRepository;
+import com.example.usermanagement.repository.sharding.UserDirectory;
+import com.example.usermanagement.support.PerfTest;
+import com.example.usermanagement.support.Timing;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class UserActivityTrackerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private UserActivityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new UserActivityTracker();
+        ReflectionTestUtils.setField(tracker, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(tracker, "shardRouter", new StaticListableBeanFactory().getBeanProvider(ShardRouter.class));
+        ReflectionTestUtils.setField(tracker, "maxPending", 1000);
+        ReflectionTestUtils.setField(tracker, "seenGranularityMillis", 60000L);
+        ReflectionTestUtils.setField(tracker, "batchSize", 2);
+    }
+
+    @Test
+    void coalescesActivityPerUserIntoOneUpdate() {
+        tracker.recordSeen(1L);
+        tracker.recordSeen(1L);
+        tracker.recordLogin(1L);
+        tracker.recordSeen(2L);
+        tracker.recordSeen(3L);
+
+        tracker.flush();
+
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.captor();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture(), any(int[].class));
+        int rows = batches.getAllValues().stream().mapToInt(List::size).sum();
+        assertEquals(3, rows);
+
+        Object[] user1 = batches.getAllValues().stream().flatMap(List::stream)
+                .filter(row -> row[2].equals(1L)).findFirst().orElseThrow();
+        assertNotNull(user1[0]);
+        assertNotNull(user1[1]);
+        Object[] user2 = batches.getAllValues().stream().flatMap(List::stream)
+                .filter(row -> row[2].equals(2L)).findFirst().orElseThrow();
+        assertNull(user2[0]);
+        assertEquals(0, tracker.pendingCount());
+    }
+
+    @Test
+    void boundsPendingUsers() {
+        ReflectionTestUtils.setField(tracker, "maxPending", 2);
+        tracker.recordSeen(1L);
+        tracker.recordSeen(2L);
+        tracker.recordSeen(3L);
+
+        assertEquals(2, tracker.pendingCount());
+    }
+
+    @Test
+    void flushWithNothingPendingDoesNotTouchDatabase() {
+        tracker.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+    }
+
+    @Test
+    void recentlyFlushedUserIsNotQueuedAgainWithinGranularity() {
+        tracker.recordSeen(1L);
+        tracker.flush();
+
+        tracker.recordSeen(1L);
+
+        assertEquals(0, tracker.pendingCount());
+    }
+
+    @Test
+    void loginIsQueuedEvenRightAfterAFlushedSeen() {
+        tracker.recordSeen(1L);
+        tracker.flush();
+
+        tracker.recordLogin(1L);
+
+        assertEquals(1, tracker.pendingCount());
+    }
+
+    @Test
+    void seenIsQueuedAgainOnceGranularityHasPassed() {
+        ReflectionTestUtils.setField(tracker, "seenGranularityMillis", -1L);
+        tracker.recordSeen(1L);
+        tracker.flush();
+
+        tracker.recordSeen(1L);
+
+        assertEquals(1, tracker.pendingCount());
+    }
+
+    @Test
+    void shardedBatchesAreWrittenToEachUsersShard() throws Exception {
+        String run = UUID.randomUUID().toString();
+        DataSource shard0 = shard("activity0-" + run);
+        ShardingConfig.migrateDirectory(shard0);
+        ShardRouter router = new ShardRouter(Map.of(0, shard0, 1, shard("activity1-" + run)), List.of(0, 1));
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("shardRouter", router);
+        ReflectionTestUtils.setField(tracker, "shardRouter", beans.getBeanProvider(ShardRouter.class));
+        ReflectionTestUtils.setField(tracker, "batchSize", 500);
+
+        UserDirectory directory = new UserDirectory(shard0);
+        router.shardIds().forEach(new ShardMigrator(router, directory)::initializeShard);
+
+        List<Long> ids = new ArrayList<>();
+        try (ShardedUserRepository users = new ShardedUserRepository(router, directory, 1, 1)) {
+            for (int i = 0; i < 8; i++) {
+                User user = new User();
+                user.setEmail("activity" + i + "@example.com");
+                user.setPassword("hash");
+                user.setFirstName("First");
+                user.setLastName("Last");
+                ids.add(users.insert(user).getId());
+            }
+            assertEquals(Set.of(0, 1), ids.stream().map(ShardRouter::shardOf).collect(Collectors.toSet()));
+            ids.forEach(tracker::recordLogin);
+
+            tracker.flush();
+
+            for (Long id : ids) {
+                assertNotNull(users.findById(id).orElseThrow().getLastLoginAt());
+            }
+        }
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+    }
+
+    private static DataSource shard(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        ShardingConfig.migrateShard(dataSource);
+        return dataSource;
+    }
+
+    @PerfTest
+    void recordSeenCostsLessThanAMicrosecond(TestReporter reporter) throws Exception {
+        int users = 10_000;
+        double nanosPerCall = Timing.nanosPerOp(2_000_000, i -> tracker.recordSeen((long) (i % users)));
+
+        reporter.publishEntry("recordSeen ns/op", String.format("%.1f", nanosPerCall));
+        assertTrue(nanosPerCall < 1000, "recordSeen took " + nanosPerCall + " ns/op");
+    }
+}
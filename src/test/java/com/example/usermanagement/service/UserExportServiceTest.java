@@ -0,0 +1,152 @@
+package com.example.usermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.usermanagement.config.ShardingConfig;
+import com.example.usermanagement.repository.sharding.ShardRouter;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserExportServiceTest {
+
+    private static final String PASSWORD_HASH = "$2a$10$secret-hash-never-exported";
+
+    private final String run = UUID.randomUUID().toString();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private DataSource primary;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+    }
+
+    @Test
+    void csvQuotesCommasQuotesAndNewlines() throws Exception {
+        insertUser(primary, 1L, "plain@example.com", "Ann", "Lee", null);
+        insertUser(primary, 2L, "odd@example.com", "Smith, \"Jr\"", "two\nlines", null);
+
+        List<String> lines = List.of(export(exportService(null), UserExportService.Format.CSV).split("\n", -1));
+
+        assertEquals("id,email,first_name,last_name,username,phone_number,profile_picture_url,is_active,role," +
+                "created_at,updated_at,last_login_at,last_seen_at", lines.get(0));
+        assertTrue(lines.get(1).startsWith("1,plain@example.com,Ann,Lee,,,,"), lines.get(1));
+        assertTrue(lines.get(2).startsWith("2,odd@example.com,\"Smith, \"\"Jr\"\"\",\"two"), lines.get(2));
+        assertTrue(lines.get(3).startsWith("lines\",,,,"), lines.get(3));
+        assertEquals("", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        insertUser(primary, 1L, "ann@example.com", "Ann", "Lee", null);
+        insertUser(primary, 2L, "bob@example.com", "Bob", "Ray", null);
+
+        String output = export(exportService(null), UserExportService.Format.NDJSON);
+
+        assertTrue(output.endsWith("\n"));
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertTrue(first.get("id").isNumber());
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("ann@example.com", first.get("email").asText());
+        assertTrue(first.get("is_active").isBoolean());
+        assertTrue(first.get("last_login_at").isNull());
+        List<String> fields = new ArrayList<>();
+        first.fieldNames().forEachRemaining(fields::add);
+        assertEquals(List.of("id", "email", "first_name", "last_name", "username", "phone_number",
+                "profile_picture_url", "is_active", "role", "created_at", "updated_at", "last_login_at",
+                "last_seen_at"), fields);
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    void leavesOutPasswordHashesAndSoftDeletedUsers() throws Exception {
+        insertUser(primary, 1L, "live@example.com", "Live", "User", null);
+        insertUser(primary, 2L, "gone@example.com", "Gone", "User", LocalDateTime.now().minusMinutes(1));
+
+        for (UserExportService.Format format : UserExportService.Format.values()) {
+            String output = export(exportService(null), format);
+
+            assertFalse(output.contains(PASSWORD_HASH), format.name());
+            assertFalse(output.contains("password"), format.name());
+            assertTrue(output.contains("live@example.com"), format.name());
+            assertFalse(output.contains("gone@example.com"), format.name());
+        }
+    }
+
+    @Test
+    void shardedExportStreamsEveryShardInIdOrder() throws Exception {
+        DataSource shard1 = database("shard1");
+        DataSource shard2 = database("shard2");
+        ShardRouter router = new ShardRouter(Map.of(0, primary, 1, shard1, 2, shard2), List.of(0, 1, 2));
+        insertUser(shard2, ShardRouter.firstId(2), "c@example.com", "C", "User", null);
+        insertUser(primary, 1L, "a@example.com", "A", "User", null);
+        insertUser(shard1, ShardRouter.firstId(1), "b@example.com", "B", "User", null);
+        insertUser(shard1, ShardRouter.firstId(1) + 1, "deleted@example.com", "D", "User", LocalDateTime.now());
+
+        String output = export(exportService(router), UserExportService.Format.NDJSON);
+
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<JsonNode> rows = objectMapper.readerFor(JsonNode.class).readValues(output); rows.hasNext(); ) {
+            ids.add(rows.next().get("id").asLong());
+        }
+        assertEquals(List.of(1L, ShardRouter.firstId(1), ShardRouter.firstId(2)), ids);
+    }
+
+    private UserExportService exportService(ShardRouter router) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (router != null) {
+            beans.addBean("shardRouter", router);
+        }
+        UserExportService service = new UserExportService(primary, new DataSourceTransactionManager(primary),
+                beans.getBeanProvider(ShardRouter.class));
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        // H2 rejects the negative fetch size that makes Connector/J stream.
+        ReflectionTestUtils.setField(service, "fetchSize", 0);
+        return service;
+    }
+
+    private static String export(UserExportService service, UserExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(out, format, UserExportService.Compression.NONE);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void insertUser(DataSource dataSource, long id, String email, String firstName, String lastName,
+                                   LocalDateTime deletedAt) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        new JdbcTemplate(dataSource).update("INSERT INTO users (id, email, password, first_name, last_name, is_active, " +
+                        "created_at, updated_at, deleted_at) VALUES (?, ?, ?, ?, ?, 1, ?, ?, ?)",
+                id, email, PASSWORD_HASH, firstName, lastName, now, now,
+                deletedAt != null ? Timestamp.valueOf(deletedAt) : null);
+    }
+
+    private DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:export-" + name + "-" + run + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        ShardingConfig.migrateShard(dataSource);
+        return dataSource;
+    }
+}
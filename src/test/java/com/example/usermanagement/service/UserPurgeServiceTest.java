@@ -0,0 +1,113 @@
+package com.example.usermanagement.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.usermanagement.repository.JpaUserStore;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-purge;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.purge.grace-period-ms=0",
+        "app.purge.max-attempts=2",
+        "app.purge.remote-call-interval-ms=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserPurgeService.class, RefreshTokenService.class, JpaUserStore.class})
+class UserPurgeServiceTest {
+
+    @Autowired
+    private UserPurgeService userPurgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ImageKitService imageKitService;
+
+    @Test
+    void failedRemoteDeleteIsRetriedOnTheNextRun() {
+        long userId = insertDeletedUser("retry", "file-retry");
+        doThrow(new RuntimeException("ImageKit unavailable")).doNothing().when(imageKitService).deleteImage("file-retry");
+
+        userPurgeService.purgeDeletedUsers();
+
+        assertEquals(1, purgeAttempts(userId));
+        assertEquals(1, count(userId));
+
+        userPurgeService.purgeDeletedUsers();
+
+        assertEquals(0, count(userId));
+    }
+
+    @Test
+    void givesUpOnTheRemoteDeleteAfterMaxAttempts() {
+        long userId = insertDeletedUser("give-up", "file-give-up");
+        doThrow(new RuntimeException("ImageKit unavailable")).when(imageKitService).deleteImage("file-give-up");
+
+        userPurgeService.purgeDeletedUsers();
+        userPurgeService.purgeDeletedUsers();
+
+        assertEquals(0, count(userId));
+    }
+
+    @Test
+    void rowClaimedByAnotherNodeIsLeftAlone() {
+        long userId = insertDeletedUser("claimed", "file-claimed");
+        jdbcTemplate.update("UPDATE users SET purge_claimed_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)), userId);
+        doNothing().when(imageKitService).deleteImage("file-claimed");
+
+        userPurgeService.purgeDeletedUsers();
+
+        verify(imageKitService, never()).deleteImage("file-claimed");
+        assertEquals(1, count(userId));
+    }
+
+    @Test
+    void expiredClaimIsTakenOver() {
+        long userId = insertDeletedUser("expired", "file-expired");
+        jdbcTemplate.update("UPDATE users SET purge_claimed_until = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(5)), userId);
+
+        userPurgeService.purgeDeletedUsers();
+
+        assertEquals(0, count(userId));
+    }
+
+    private long insertDeletedUser(String name, String fileId) {
+        Timestamp deletedAt = Timestamp.valueOf(LocalDateTime.now().minusMinutes(1));
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, profile_picture_file_id, " +
+                        "is_active, created_at, updated_at, deleted_at) VALUES (?, 'x', 'First', 'Last', ?, 0, ?, ?, ?)",
+                name + "@example.com", fileId, deletedAt, deletedAt, deletedAt);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, name + "@example.com");
+    }
+
+    private int purgeAttempts(long userId) {
+        return jdbcTemplate.queryForObject("SELECT purge_attempts FROM users WHERE id = ?", Integer.class, userId);
+    }
+
+    private int count(long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+    }
+}
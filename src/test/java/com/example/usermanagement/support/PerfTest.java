@@ -0,0 +1,20 @@
+package com.example.usermanagement.support;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a wall-clock measurement. These are excluded from the default build and run with
+ * {@code mvn test -Pperf}, on a quiet machine, because their timing assertions depend on the host.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("perf")
+@Test
+public @interface PerfTest {
+}
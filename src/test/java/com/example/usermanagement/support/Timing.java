@@ -0,0 +1,38 @@
+package com.example.usermanagement.support;
+
+/**
+ * Shared measurement loops for {@link PerfTest}s.
+ */
+public final class Timing {
+
+    private Timing() {
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+        void run(int iteration) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    /** Runs the operation {@code iterations} times to warm up, then times another {@code iterations} calls. */
+    public static double nanosPerOp(int iterations, Operation operation) throws Exception {
+        for (int i = 0; i < iterations; i++) {
+            operation.run(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run(i);
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    public static long millis(Task task) throws Exception {
+        long start = System.nanoTime();
+        task.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}